@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Serves the session and teacher reads of the Yoga app on a few event-loop threads, from the same database
+ * as the servlet back-end, which keeps every write and owns the schema.
+ */
+@SpringBootApplication
+public class SessionReadApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(SessionReadApplication.class, args);
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.repository.SessionReadRepository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/session")
+public class SessionController {
+    private final SessionReadRepository sessionReadRepository;
+
+    public SessionController(SessionReadRepository sessionReadRepository) {
+        this.sessionReadRepository = sessionReadRepository;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<SessionDto>> findById(@PathVariable("id") String id) {
+        try {
+            return this.sessionReadRepository.findById(Long.valueOf(id))
+                    .map(ResponseEntity::ok)
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        } catch (NumberFormatException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+    }
+
+    @GetMapping()
+    public Flux<SessionDto> findAll() {
+        return this.sessionReadRepository.findAll();
+    }
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.repository.TeacherReadRepository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/teacher")
+public class TeacherController {
+    private final TeacherReadRepository teacherReadRepository;
+
+    public TeacherController(TeacherReadRepository teacherReadRepository) {
+        this.teacherReadRepository = teacherReadRepository;
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TeacherDto>> findById(@PathVariable("id") String id) {
+        try {
+            return this.teacherReadRepository.findById(Long.valueOf(id))
+                    .map(ResponseEntity::ok)
+                    .defaultIfEmpty(ResponseEntity.notFound().build());
+        } catch (NumberFormatException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+    }
+
+    @GetMapping()
+    public Flux<TeacherDto> findAll() {
+        return this.teacherReadRepository.findAll();
+    }
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The session as the servlet back-end returns it, field for field.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionDto {
+    private Long id;
+
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    private String description;
+
+    private Integer capacity;
+
+    private List<Long> users;
+
+    private Integer participantCount;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The teacher as the servlet back-end returns it, field for field.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeacherDto {
+    private Long id;
+
+    private String lastName;
+
+    private String firstName;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.repository;
+
+import io.r2dbc.spi.Row;
+
+final class Rows {
+    private Rows() {
+    }
+
+    /**
+     * Ids are INT columns, which drivers return as Integer; the DTOs carry them as Long.
+     */
+    static Long getLong(Row row, String column) {
+        Number value = row.get(column, Number.class);
+        return value != null ? value.longValue() : null;
+    }
+}
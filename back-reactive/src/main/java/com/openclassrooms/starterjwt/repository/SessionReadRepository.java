@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Sessions with the ids of their participants, each read in one statement: the session rows are joined to
+ * PARTICIPATE, ordered by session, and the consecutive rows of a session folded back into one DTO as they
+ * arrive, so a list is streamed without being held whole.
+ */
+@Repository
+public class SessionReadRepository {
+    private static final String SELECT = "SELECT s.id, s.name, s.date, s.teacher_id, s.description, s.capacity,"
+            + " s.participant_count, s.created_at, s.updated_at, p.user_id"
+            + " FROM SESSIONS s LEFT JOIN PARTICIPATE p ON p.session_id = s.id";
+
+    private final DatabaseClient databaseClient;
+
+    public SessionReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<SessionDto> findAll() {
+        return fold(this.databaseClient.sql(SELECT + " ORDER BY s.id, p.user_id")
+                .map((row, metadata) -> toDto(row))
+                .all());
+    }
+
+    public Mono<SessionDto> findById(Long id) {
+        return fold(this.databaseClient.sql(SELECT + " WHERE s.id = :id ORDER BY p.user_id")
+                .bind("id", id)
+                .map((row, metadata) -> toDto(row))
+                .all())
+                .next();
+    }
+
+    private static Flux<SessionDto> fold(Flux<SessionDto> rows) {
+        return rows.bufferUntilChanged(SessionDto::getId)
+                .map(sessionRows -> {
+                    SessionDto session = sessionRows.get(0);
+                    List<Long> users = new ArrayList<>(sessionRows.size());
+                    for (SessionDto sessionRow : sessionRows) {
+                        users.addAll(sessionRow.getUsers());
+                    }
+                    session.setUsers(users);
+                    return session;
+                });
+    }
+
+    /**
+     * One row: the session, and in {@code users} the participant of that row, if any.
+     */
+    private static SessionDto toDto(Row row) {
+        Long userId = Rows.getLong(row, "user_id");
+        List<Long> users = new ArrayList<>(1);
+        if (userId != null) {
+            users.add(userId);
+        }
+
+        LocalDateTime date = row.get("date", LocalDateTime.class);
+        return new SessionDto(
+                Rows.getLong(row, "id"),
+                row.get("name", String.class),
+                date != null ? Date.from(date.atZone(ZoneId.systemDefault()).toInstant()) : null,
+                Rows.getLong(row, "teacher_id"),
+                row.get("description", String.class),
+                row.get("capacity", Integer.class),
+                users,
+                row.get("participant_count", Integer.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class TeacherReadRepository {
+    private static final String SELECT = "SELECT id, last_name, first_name, created_at, updated_at FROM TEACHERS";
+
+    private final DatabaseClient databaseClient;
+
+    public TeacherReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<TeacherDto> findAll() {
+        return this.databaseClient.sql(SELECT + " ORDER BY id")
+                .map((row, metadata) -> toDto(row))
+                .all();
+    }
+
+    public Mono<TeacherDto> findById(Long id) {
+        return this.databaseClient.sql(SELECT + " WHERE id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toDto(row))
+                .one();
+    }
+
+    private static TeacherDto toDto(Row row) {
+        return new TeacherDto(
+                Rows.getLong(row, "id"),
+                row.get("last_name", String.class),
+                row.get("first_name", String.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+}
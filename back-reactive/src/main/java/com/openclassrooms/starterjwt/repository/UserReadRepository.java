@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class UserReadRepository {
+    private final DatabaseClient databaseClient;
+
+    public UserReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return this.databaseClient.sql("SELECT id FROM USERS WHERE email = :email LIMIT 1")
+                .bind("email", email)
+                .map((row, metadata) -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+}
@@ -0,0 +1,113 @@
+package com.openclassrooms.starterjwt.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.repository.UserReadRepository;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Mono;
+
+/**
+ * The servlet back-end's AuthTokenFilter and AuthEntryPointJwt as one WebFilter: every {@code /api/**} request
+ * needs a bearer token signed with the shared secret, or is answered with the same 401 body.
+ * <p>
+ * The servlet back-end revokes the tokens of a deleted user in its own memory, which is not seen here; instead
+ * a token is only accepted while its user still exists. The answer is cached for {@code oc.app.userCacheTtlMs},
+ * so a deleted user keeps reading for at most that long, and a client's repeat calls skip the lookup.
+ */
+@Component
+public class AuthTokenWebFilter implements WebFilter {
+  private static final Logger logger = LoggerFactory.getLogger(AuthTokenWebFilter.class);
+
+  private final JwtVerifier jwtVerifier;
+
+  private final UserReadRepository userReadRepository;
+
+  private final ObjectMapper objectMapper;
+
+  private final AsyncCache<String, Boolean> userExistsCache;
+
+  public AuthTokenWebFilter(JwtVerifier jwtVerifier,
+                            UserReadRepository userReadRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${oc.app.userCacheMaxSize}") long cacheMaxSize,
+                            @Value("${oc.app.userCacheTtlMs}") long cacheTtlMs) {
+    this.jwtVerifier = jwtVerifier;
+    this.userReadRepository = userReadRepository;
+    this.objectMapper = objectMapper;
+    this.userExistsCache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+        .buildAsync();
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/api/")) {
+      return chain.filter(exchange);
+    }
+
+    String jwt = parseJwt(exchange);
+    Claims claims = jwt != null ? jwtVerifier.verify(jwt) : null;
+    if (claims == null) {
+      return unauthorized(exchange, "Full authentication is required to access this resource");
+    }
+
+    // a failed lookup is not cached, so the next request tries again
+    return Mono.fromFuture(userExistsCache.get(claims.getSubject(),
+            (email, executor) -> userReadRepository.existsByEmail(email).toFuture()))
+        .flatMap(exists -> exists ? chain.filter(exchange) : unauthorized(exchange, "User Not Found with email: " + claims.getSubject()));
+  }
+
+  private String parseJwt(ServerWebExchange exchange) {
+    String headerAuth = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+    if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+      return headerAuth.substring(7);
+    }
+
+    return null;
+  }
+
+  private Mono<Void> unauthorized(ServerWebExchange exchange, String message) {
+    logger.error("Unauthorized error: {}", message);
+
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(HttpStatus.UNAUTHORIZED);
+    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+    Map<String, Object> body = new HashMap<>();
+    body.put("status", HttpStatus.UNAUTHORIZED.value());
+    body.put("error", "Unauthorized");
+    body.put("message", message);
+    body.put("path", exchange.getRequest().getPath().pathWithinApplication().value());
+
+    DataBuffer buffer;
+    try {
+      buffer = response.bufferFactory().wrap(objectMapper.writeValueAsBytes(body));
+    } catch (JsonProcessingException e) {
+      return Mono.error(e);
+    }
+    return response.writeWith(Mono.just(buffer));
+  }
+}
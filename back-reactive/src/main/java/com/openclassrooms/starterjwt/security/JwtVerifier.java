@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Verifies the tokens issued by the servlet back-end, with the same secret, and caches the claims of valid
+ * ones the same way its JwtUtils does, so a client's repeat calls skip the HMAC.
+ */
+@Component
+public class JwtVerifier {
+  private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+  private final String jwtSecret;
+
+  private final Cache<String, Claims> claimsCache;
+
+  public JwtVerifier(@Value("${oc.app.jwtSecret}") String jwtSecret,
+                     @Value("${oc.app.jwtCacheMaxSize}") long cacheMaxSize,
+                     @Value("${oc.app.jwtCacheTtlMs}") long cacheTtlMs) {
+    this.jwtSecret = jwtSecret;
+    this.claimsCache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new ClaimsExpiry(TimeUnit.MILLISECONDS.toNanos(cacheTtlMs)))
+        .build();
+  }
+
+  /**
+   * The verified claims, or null for a token that is missing, forged, expired or malformed.
+   */
+  public Claims verify(String token) {
+    try {
+      return claimsCache.get(token, key -> Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(key).getBody());
+    } catch (SignatureException e) {
+      logger.error("Invalid JWT signature: {}", e.getMessage());
+    } catch (MalformedJwtException e) {
+      logger.error("Invalid JWT token: {}", e.getMessage());
+    } catch (ExpiredJwtException e) {
+      logger.error("JWT token is expired: {}", e.getMessage());
+    } catch (UnsupportedJwtException e) {
+      logger.error("JWT token is unsupported: {}", e.getMessage());
+    } catch (IllegalArgumentException e) {
+      logger.error("JWT claims string is empty: {}", e.getMessage());
+    }
+    return null;
+  }
+
+  private static class ClaimsExpiry implements Expiry<String, Claims> {
+    private final long ttlNanos;
+
+    ClaimsExpiry(long ttlNanos) {
+      this.ttlNanos = ttlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+      if (claims.getExpiration() == null) {
+        return ttlNanos;
+      }
+      long untilExpiration = TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+      return Math.max(0, Math.min(ttlNanos, untilExpiration));
+    }
+
+    @Override
+    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SessionReadApiTest {
+    private static final int EVENT_LOOP_THREADS = 2;
+
+    private static final int CONCURRENT_CLIENTS = 2000;
+
+    static {
+        // shared by the server and the clients below
+        System.setProperty("reactor.netty.ioWorkerCount", String.valueOf(EVENT_LOOP_THREADS));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private Long teacherId;
+
+    private Long sessionId;
+
+    private Long aliceId;
+
+    private Long bobId;
+
+    @BeforeEach
+    public void setUp() {
+        this.teacherId = insert("INSERT INTO TEACHERS (first_name, last_name) VALUES ('Margot', 'Delahaye')");
+        this.aliceId = insert("INSERT INTO USERS (first_name, last_name, email, password) VALUES ('Alice', 'Alice', 'alice@studio.com', 'password')");
+        this.bobId = insert("INSERT INTO USERS (first_name, last_name, email, password) VALUES ('Bob', 'Bob', 'bob@studio.com', 'password')");
+        this.sessionId = insert("INSERT INTO SESSIONS (name, description, date, teacher_id, capacity, participant_count)"
+                + " VALUES ('Vinyasa', 'Flow', TIMESTAMP '2024-01-01 10:00:00', " + this.teacherId + ", 10, 2)");
+        insert("INSERT INTO SESSIONS (name, description, date, participant_count) VALUES ('Yin', 'Slow', TIMESTAMP '2024-01-02 10:00:00', 0)");
+        execute("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (" + this.sessionId + ", " + this.bobId + "), (" + this.sessionId + ", " + this.aliceId + ")");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        execute("DELETE FROM PARTICIPATE");
+        execute("DELETE FROM SESSIONS");
+        execute("DELETE FROM USERS");
+        execute("DELETE FROM TEACHERS");
+    }
+
+    @Test
+    public void listsSessionsWithTheirParticipants() {
+        get("/api/session", token("alice@studio.com", this.aliceId))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$", hasSize(2)).exists()
+                .jsonPath("$[0].id").isEqualTo(this.sessionId)
+                .jsonPath("$[0].teacher_id").isEqualTo(this.teacherId)
+                .jsonPath("$[0].capacity").isEqualTo(10)
+                .jsonPath("$[0].participantCount").isEqualTo(2)
+                .jsonPath("$[0].users").value(contains(this.aliceId.intValue(), this.bobId.intValue()))
+                .jsonPath("$[0].date").value(startsWith("2024-01-01T"))
+                .jsonPath("$[0].createdAt").exists()
+                .jsonPath("$[1].name").isEqualTo("Yin")
+                .jsonPath("$[1].teacher_id").doesNotExist()
+                .jsonPath("$[1].users").isEmpty();
+    }
+
+    @Test
+    public void readsOneSession() {
+        String token = token("alice@studio.com", this.aliceId);
+
+        get("/api/session/" + this.sessionId, token)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Vinyasa")
+                .jsonPath("$.users").value(contains(this.aliceId.intValue(), this.bobId.intValue()));
+        get("/api/session/0", token).expectStatus().isNotFound();
+        get("/api/session/abc", token).expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void readsTeachers() {
+        String token = token("alice@studio.com", this.aliceId);
+
+        get("/api/teacher", token)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[*].lastName").value(contains("Delahaye"));
+        get("/api/teacher/" + this.teacherId, token)
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Margot");
+        get("/api/teacher/0", token).expectStatus().isNotFound();
+    }
+
+    @Test
+    public void verifiesTokensAsTheServletBackEndDoes() {
+        get("/api/session", null)
+                .expectStatus().isUnauthorized()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(401)
+                .jsonPath("$.error").isEqualTo("Unauthorized")
+                .jsonPath("$.path").isEqualTo("/api/session");
+
+        String forged = Jwts.builder().setSubject("alice@studio.com").claim("id", this.aliceId)
+                .signWith(SignatureAlgorithm.HS512, "not-the-secret").compact();
+        get("/api/session", forged).expectStatus().isUnauthorized();
+
+        // with or without the profile claims, the user must still exist
+        get("/api/session", token("bob@studio.com", null)).expectStatus().isOk();
+        get("/api/session", token("gone@studio.com", null)).expectStatus().isUnauthorized();
+        get("/api/session", token("deleted@studio.com", this.bobId + 1000)).expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void servesThousandsOfConcurrentClientsOnAFewThreads() {
+        // one connection per client, all open at once
+        ConnectionProvider connections = ConnectionProvider.builder("clients").maxConnections(CONCURRENT_CLIENTS).build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + this.port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        String token = token("alice@studio.com", this.aliceId);
+
+        List<Integer> statuses = Flux.range(0, CONCURRENT_CLIENTS)
+                .flatMap(i -> client.get().uri("/api/session/" + this.sessionId)
+                        .headers(headers -> headers.setBearerAuth(token))
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode())),
+                        CONCURRENT_CLIENTS)
+                .collectList()
+                .doFinally(signal -> connections.dispose())
+                .block();
+
+        assertThat(statuses).hasSize(CONCURRENT_CLIENTS).containsOnly(200);
+        List<String> eventLoops = Thread.getAllStackTraces().keySet().stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("reactor-http-"))
+                .collect(Collectors.toList());
+        assertThat(eventLoops).hasSizeLessThanOrEqualTo(EVENT_LOOP_THREADS);
+    }
+
+    private WebTestClient.ResponseSpec get(String path, String token) {
+        return this.webTestClient.get().uri(path)
+                .headers(headers -> {
+                    if (token != null) {
+                        headers.setBearerAuth(token);
+                    }
+                })
+                .exchange();
+    }
+
+    private static String token(String email, Long id) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim("id", id)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, "openclassrooms")
+                .compact();
+    }
+
+    private void execute(String sql) {
+        this.databaseClient.sql(sql).then().block();
+    }
+
+    private Long insert(String sql) {
+        return this.databaseClient.sql(sql)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map((row, metadata) -> row.get("id", Number.class))
+                .first()
+                .map(Number::longValue)
+                .block();
+    }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the 401 body written for every unauthenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthEntryPointBenchmark {
+    private AuthEntryPointJwt authEntryPoint;
+    private MockHttpServletRequest request;
+    private AuthenticationException authException;
+
+    @Setup
+    public void setup() {
+        this.authEntryPoint = new AuthEntryPointJwt();
+        this.request = new MockHttpServletRequest("GET", "/api/session");
+        this.request.setServletPath("/api/session");
+        this.authException = new InsufficientAuthenticationException("Full authentication is required to access this resource");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse commence() throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.authEntryPoint.commence(this.request, response, this.authException);
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing at login, and validation on every authenticated request, with and without the claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtils cachedJwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setup() {
+        this.cachedJwtUtils = jwtUtils(10000);
+        this.uncachedJwtUtils = jwtUtils(0);
+
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .build();
+        this.authentication = new UsernamePasswordAuthenticationToken(userDetails, null, new ArrayList<>());
+        this.token = this.cachedJwtUtils.generateJwtToken(this.authentication);
+        this.cachedJwtUtils.validateJwtToken(this.token);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return this.cachedJwtUtils.generateJwtToken(this.authentication);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenCached() {
+        return this.cachedJwtUtils.validateJwtToken(this.token);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenUncached() {
+        return this.uncachedJwtUtils.validateJwtToken(this.token);
+    }
+
+    private static JwtUtils jwtUtils(long cacheMaxSize) {
+        JwtUtils jwtUtils = new JwtUtils(cacheMaxSize, TimeUnit.MINUTES.toMillis(5), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Participant ids as a boxed {@code List<Long>}, as sessions carried them before, against {@link ParticipantIds}:
+ * building from PARTICIPATE rows, membership, iteration and JSON output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticipantIdsBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int participants;
+
+    private long[] rows;
+    private long[] probes;
+    private List<Long> boxed;
+    private ParticipantIds primitive;
+    private ObjectWriter boxedWriter;
+    private ObjectWriter primitiveWriter;
+
+    @Setup
+    public void setup() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= this.participants; id++) {
+            ids.add(id * 7);
+        }
+        // rows come back from PARTICIPATE in no particular order
+        Collections.shuffle(ids, new Random(42));
+        this.rows = ids.stream().mapToLong(Long::longValue).toArray();
+
+        Random random = new Random(7);
+        this.probes = new long[64];
+        for (int i = 0; i < this.probes.length; i++) {
+            this.probes[i] = random.nextInt(this.participants * 7 + 1);
+        }
+
+        this.boxed = this.buildBoxed();
+        this.primitive = this.buildPrimitive();
+        ObjectMapper objectMapper = new ObjectMapper();
+        this.boxedWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Long.class));
+        this.primitiveWriter = objectMapper.writerFor(ParticipantIds.class);
+    }
+
+    @Benchmark
+    public List<Long> buildBoxed() {
+        List<Long> ids = new ArrayList<>();
+        for (long row : this.rows) {
+            ids.add(row);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public ParticipantIds buildPrimitive() {
+        ParticipantIds.Builder builder = ParticipantIds.builder();
+        for (long row : this.rows) {
+            builder.add(row);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public int containsBoxed() {
+        int found = 0;
+        for (long probe : this.probes) {
+            if (this.boxed.stream().anyMatch(id -> id.equals(probe))) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int containsPrimitive() {
+        int found = 0;
+        for (long probe : this.probes) {
+            if (this.primitive.contains(probe)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long sumBoxed() {
+        long sum = 0;
+        for (Long id : this.boxed) {
+            sum += id;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumPrimitive() {
+        return this.primitive.stream().sum();
+    }
+
+    @Benchmark
+    public byte[] serializeBoxed() throws JsonProcessingException {
+        return this.boxedWriter.writeValueAsBytes(this.boxed);
+    }
+
+    @Benchmark
+    public byte[] serializePrimitive() throws JsonProcessingException {
+        return this.primitiveWriter.writeValueAsBytes(this.primitive);
+    }
+}
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.openclassrooms.starterjwt.config.IsoDateModule;
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Writing the {@code GET /api/session} body with plain reflective databinding, with each of the bytecode-generating
+ * modules, and with the {@link IsoDateModule} the application registers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionListSerializationBenchmark {
+    @Param({"100", "5000"})
+    private int sessions;
+
+    @Param({"reflection", "afterburner", "blackbird", "isoDates"})
+    private String databind;
+
+    private ObjectWriter writer;
+    private List<SessionDto> sessionDtos;
+
+    @Setup
+    public void setup() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if ("afterburner".equals(this.databind)) {
+            builder.modulesToInstall(new AfterburnerModule());
+        } else if ("blackbird".equals(this.databind)) {
+            builder.modulesToInstall(new BlackbirdModule());
+        } else if ("isoDates".equals(this.databind)) {
+            builder.modulesToInstall(new IsoDateModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+
+        LocalDateTime now = LocalDateTime.now();
+        this.sessionDtos = new ArrayList<>(this.sessions);
+        for (long id = 1; id <= this.sessions; id++) {
+            this.sessionDtos.add(new SessionDto(id, "Session " + id, new Date(), id % 20 + 1,
+                    "Vinyasa flow for every level, bring your own mat", 20,
+                    ParticipantIds.of(LongStream.range(id, id + 15).toArray()), 15, now, now));
+        }
+        this.writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, SessionDto.class));
+    }
+
+    @Benchmark
+    public byte[] writeSessionList() throws JsonProcessingException {
+        return this.writer.writeValueAsBytes(this.sessionDtos);
+    }
+}
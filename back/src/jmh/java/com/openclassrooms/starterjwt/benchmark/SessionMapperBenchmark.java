@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapperImpl;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Mapping cost of sessions with large participant lists, with the services answering from memory
+ * so that only the mapper itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionMapperBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int participants;
+
+    private SessionMapper sessionMapper;
+    private Session session;
+    private SessionDto sessionDto;
+    private ParticipantIds participantIds;
+
+    @Setup
+    public void setup() {
+        Teacher teacher = new Teacher().setId(1L).setFirstName("Margot").setLastName("Delahaye");
+        List<Long> userIds = LongStream.rangeClosed(1, this.participants).boxed().collect(Collectors.toList());
+        Map<Long, User> users = userIds.stream().collect(Collectors.toMap(Function.identity(),
+                id -> new User("user" + id + "@studio.com", "Last", "First", "password", false).setId(id)));
+
+        this.participantIds = ParticipantIds.of(userIds);
+
+        this.sessionMapper = new SessionMapperImpl();
+        TeacherDto teacherDto = new TeacherDto(1L, "Delahaye", "Margot", null, null);
+        ReflectionTestUtils.setField(this.sessionMapper, "teacherService", new TeacherService(null, null) {
+            @Override
+            public TeacherDto findById(Long id) {
+                return teacherDto;
+            }
+
+            @Override
+            public Teacher getReference(Long id) {
+                return teacher;
+            }
+        });
+        ReflectionTestUtils.setField(this.sessionMapper, "userService", new UserService(null, null, null) {
+            @Override
+            public List<User> findAllById(Collection<Long> ids) {
+                return ids.stream().map(users::get).collect(Collectors.toList());
+            }
+        });
+
+        this.session = Session.builder()
+                .id(1L)
+                .name("Morning flow")
+                .date(new Date())
+                .description("Vinyasa for every level")
+                .teacher(teacher)
+                .build();
+        this.sessionDto = this.sessionMapper.toDto(this.session, this.participantIds);
+    }
+
+    @Benchmark
+    public SessionDto toDto() {
+        return this.sessionMapper.toDto(this.session, this.participantIds);
+    }
+
+    @Benchmark
+    public Session toEntity() {
+        return this.sessionMapper.toEntity(this.sessionDto);
+    }
+}
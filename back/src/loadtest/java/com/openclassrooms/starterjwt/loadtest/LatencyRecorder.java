@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread list of request latencies in nanoseconds, merged and sorted once the run is over.
+ */
+class LatencyRecorder {
+    private long[] latencies = new long[1024];
+    private int size;
+    private int errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (this.size == this.latencies.length) {
+            this.latencies = Arrays.copyOf(this.latencies, this.size * 2);
+        }
+        this.latencies[this.size++] = latencyNanos;
+        if (!success) {
+            this.errors++;
+        }
+    }
+
+    static Result merge(String scenario, Iterable<LatencyRecorder> recorders, long elapsedNanos) {
+        int size = 0;
+        int errors = 0;
+        for (LatencyRecorder recorder : recorders) {
+            size += recorder.size;
+            errors += recorder.errors;
+        }
+
+        long[] all = new long[size];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, all, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(all);
+
+        return new Result(scenario, size, errors, size / (elapsedNanos / 1e9),
+                percentileMillis(all, 0.50), percentileMillis(all, 0.99), size > 0 ? all[size - 1] / 1e6 : 0);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    static class Result {
+        public final String scenario;
+        public final int requests;
+        public final int errors;
+        public final double throughput;
+        public final double p50Ms;
+        public final double p99Ms;
+        public final double maxMs;
+
+        Result(String scenario, int requests, int errors, double throughput, double p50Ms, double p99Ms, double maxMs) {
+            this.scenario = scenario;
+            this.requests = requests;
+            this.errors = errors;
+            this.throughput = throughput;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %10d %8d %12.1f %10.2f %10.2f %10.2f",
+                    scenario, requests, errors, throughput, p50Ms, p99Ms, maxMs);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the application in the {@code loadtest} profile, seeds it, then drives the endpoints of the Postman
+ * collection with {@code loadtest.concurrency} clients and reports p50/p99 latency and throughput per endpoint.
+ *
+ * <p>Run with {@code mvn -Ploadtest -DskipTests verify}; any {@code loadtest.*} property can be overridden with
+ * {@code -Dloadtest.args="--loadtest.concurrency=64 --loadtest.sessions=2000000"}.</p>
+ *
+ * <p>The application runs with its own {@code application.properties}, not the one of the tests, so that
+ * {@code -Dloadtest.args=--spring.profiles.active=prod} measures the production tuning against it. The embedded
+ * database answers in microseconds; {@code --loadtest.statementLatencyMillis} makes each statement as slow as
+ * a round trip to a remote server, which is where pool and connection settings show.</p>
+ *
+ * <p>With slow statements, {@code --server.tomcat.threads.max=8 --spring.datasource.hikari.maximum-pool-size=64}
+ * caps the server at 8 requests in flight; adding {@code --oc.app.requestThreads=64} runs the controllers on 64
+ * threads behind the same 8.</p>
+ *
+ * <p>{@code --loadtest.scenarios=unauthorized} sends requests without a token, a flood of 401s.</p>
+ */
+public class LoadTest {
+
+    interface Scenario {
+        boolean execute(ThreadLocalRandom random);
+    }
+
+    public static void main(String[] args) throws Exception {
+        SpringApplication application = new SpringApplication(SpringBootSecurityJwtApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        // the test resources, on the same classpath, have an application.properties of their own
+        application.setDefaultProperties(Collections.singletonMap(
+                "spring.config.location", "file:src/main/resources/,classpath:/loadtest/"));
+        application.addInitializers(context -> context.getBeanFactory().addBeanPostProcessor(new StatementLatency(
+                context.getEnvironment().getRequiredProperty("loadtest.statementLatencyMillis", Long.class))));
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            Environment env = context.getEnvironment();
+            int concurrency = env.getProperty("loadtest.concurrency", Integer.class);
+            // HttpURLConnection only keeps 5 idle connections per host by default
+            System.setProperty("http.maxConnections", String.valueOf(concurrency));
+
+            LoadTestSeeder seeder = new LoadTestSeeder(context.getBean(JdbcTemplate.class));
+            long start = System.nanoTime();
+            long[] userIds = seeder.seedUsers(env.getProperty("loadtest.users", Long.class));
+            long[] sessionIds = seeder.seedSessions(env.getProperty("loadtest.sessions", Long.class),
+                    env.getProperty("loadtest.participantsPerSession", Integer.class), userIds);
+            System.out.printf("Seeded %d users and %d sessions in %d s%n",
+                    userIds[1] - userIds[0] + 1, sessionIds[1] - sessionIds[0] + 1,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+
+            LoadTest loadTest = new LoadTest("http://localhost:" + env.getProperty("local.server.port"), userIds, sessionIds,
+                    env.getProperty("loadtest.sessionsPath"));
+
+            List<LatencyRecorder.Result> results = new ArrayList<>();
+            for (String scenario : env.getProperty("loadtest.scenarios", String[].class)) {
+                results.add(run(scenario, loadTest.scenario(scenario), concurrency,
+                        env.getProperty("loadtest.warmupSeconds", Long.class),
+                        env.getProperty("loadtest.durationSeconds", Long.class)));
+            }
+
+            System.out.printf("%n%-12s %10s %8s %12s %10s %10s %10s%n",
+                    "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+            results.forEach(System.out::println);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("profiles", env.getActiveProfiles());
+            report.put("concurrency", concurrency);
+            report.put("statementLatencyMillis", env.getProperty("loadtest.statementLatencyMillis", Long.class));
+            report.put("tomcatThreads", env.getProperty("server.tomcat.threads.max", Integer.class, 200));
+            report.put("requestThreads", env.getProperty("oc.app.requestThreads", Integer.class));
+            report.put("users", userIds[1] - userIds[0] + 1);
+            report.put("sessions", sessionIds[1] - sessionIds[0] + 1);
+            report.put("results", results);
+            File result = new File(env.getProperty("loadtest.result"));
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(result, report);
+            System.out.println("Load test result is saved to " + result.getAbsolutePath());
+        }
+    }
+
+    private static LatencyRecorder.Result run(String name, Scenario scenario, int concurrency,
+                                              long warmupSeconds, long durationSeconds) throws Exception {
+        System.out.printf("Running %s: %d s warmup, %d s measurement, %d clients%n",
+                name, warmupSeconds, durationSeconds, concurrency);
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<LatencyRecorder>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> {
+                    LatencyRecorder recorder = new LatencyRecorder();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long now = System.nanoTime();
+                    while (now < measureTo) {
+                        boolean success = scenario.execute(random);
+                        long end = System.nanoTime();
+                        if (now >= measureFrom) {
+                            recorder.record(end - now, success);
+                        }
+                        now = end;
+                    }
+                    return recorder;
+                }));
+            }
+
+            List<LatencyRecorder> recorders = new ArrayList<>();
+            for (Future<LatencyRecorder> future : futures) {
+                recorders.add(future.get());
+            }
+            return LatencyRecorder.merge(name, recorders, measureTo - measureFrom);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final long[] userIds;
+    private final long[] sessionIds;
+    private final String sessionsPath;
+    private final HttpHeaders adminHeaders;
+
+    private LoadTest(String baseUrl, long[] userIds, long[] sessionIds, String sessionsPath) {
+        this.restTemplate = new RestTemplate();
+        this.restTemplate.setErrorHandler(new ResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+
+            @Override
+            public void handleError(ClientHttpResponse response) {
+            }
+        });
+        this.baseUrl = baseUrl;
+        this.userIds = userIds;
+        this.sessionIds = sessionIds;
+        this.sessionsPath = sessionsPath;
+
+        this.adminHeaders = new HttpHeaders();
+        this.adminHeaders.setBearerAuth(login("yoga@studio.com").getBody().get("token").toString());
+    }
+
+    private Scenario scenario(String name) {
+        switch (name) {
+            case "login":
+                return random -> login(LoadTestSeeder.EMAIL_PREFIX
+                        + (1 + random.nextLong(this.userIds[1] - this.userIds[0] + 1))
+                        + LoadTestSeeder.EMAIL_SUFFIX).getStatusCode().is2xxSuccessful();
+            case "sessions":
+                return random -> exchange(HttpMethod.GET, this.sessionsPath).is2xxSuccessful();
+            case "session":
+                return random -> exchange(HttpMethod.GET, "/api/session/"
+                        + random.nextLong(this.sessionIds[0], this.sessionIds[1] + 1)).is2xxSuccessful();
+            case "userSessions":
+                return random -> exchange(HttpMethod.GET, "/api/user/"
+                        + random.nextLong(this.userIds[0], this.userIds[1] + 1) + "/sessions").is2xxSuccessful();
+            case "participate":
+                return random -> exchange(HttpMethod.POST, "/api/session/"
+                        + random.nextLong(this.sessionIds[0], this.sessionIds[1] + 1) + "/participate/"
+                        + random.nextLong(this.userIds[0], this.userIds[1] + 1)).is2xxSuccessful();
+            case "unauthorized":
+                // clients whose token is gone, each request answered by the 401 entry point
+                return random -> this.restTemplate.exchange(this.baseUrl + "/api/session/"
+                                + random.nextLong(this.sessionIds[0], this.sessionIds[1] + 1),
+                        HttpMethod.GET, HttpEntity.EMPTY, byte[].class).getStatusCode() == HttpStatus.UNAUTHORIZED;
+            default:
+                throw new IllegalArgumentException("Unknown scenario " + name);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ResponseEntity<Map> login(String email) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("email", email);
+        body.put("password", LoadTestSeeder.PASSWORD);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return this.restTemplate.postForEntity(this.baseUrl + "/api/auth/login", new HttpEntity<>(body, headers), Map.class);
+    }
+
+    private HttpStatus exchange(HttpMethod method, String path) {
+        return this.restTemplate.exchange(this.baseUrl + path, method, new HttpEntity<>(this.adminHeaders), byte[].class)
+                .getStatusCode();
+    }
+}
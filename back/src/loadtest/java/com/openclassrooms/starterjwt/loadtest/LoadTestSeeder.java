@@ -0,0 +1,73 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Bulk-loads users, sessions and PARTICIPATE rows with INSERT ... SELECT over H2's SYSTEM_RANGE,
+ * in chunks so that a single transaction never holds millions of rows.
+ */
+class LoadTestSeeder {
+    static final String EMAIL_PREFIX = "loadtest";
+    static final String EMAIL_SUFFIX = "@studio.com";
+    static final String PASSWORD = "test!1234";
+
+    private static final long CHUNK_SIZE = 100000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LoadTestSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the users, all sharing the admin's password hash, and returns the range of their ids.
+     */
+    long[] seedUsers(long users) {
+        String password = this.jdbcTemplate.queryForObject(
+                "SELECT password FROM USERS WHERE email = 'yoga@studio.com'", String.class);
+        for (long from = 1; from <= users; from += CHUNK_SIZE) {
+            this.jdbcTemplate.update("INSERT INTO USERS (first_name, last_name, admin, email, password) "
+                            + "SELECT 'Load', 'Test', false, CONCAT('" + EMAIL_PREFIX + "', X, '" + EMAIL_SUFFIX + "'), ? "
+                            + "FROM SYSTEM_RANGE(?, ?)",
+                    password, from, Math.min(users, from + CHUNK_SIZE - 1));
+        }
+        return idRange("USERS", "email LIKE '" + EMAIL_PREFIX + "%'");
+    }
+
+    /**
+     * Creates the sessions, one per minute from 2020 on, and gives each of them {@code participantsPerSession}
+     * distinct users; returns the range of session ids.
+     */
+    long[] seedSessions(long sessions, int participantsPerSession, long[] userIds) {
+        long users = userIds[1] - userIds[0] + 1;
+        if (participantsPerSession > users) {
+            throw new IllegalArgumentException("participantsPerSession cannot exceed the number of users");
+        }
+
+        for (long from = 1; from <= sessions; from += CHUNK_SIZE) {
+            this.jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id, participant_count) "
+                            + "SELECT CONCAT('Session ', X), 'Load test session', "
+                            + "DATEADD('MINUTE', X, TIMESTAMP '2020-01-01 00:00:00'), "
+                            + "(SELECT MIN(id) FROM TEACHERS), ? "
+                            + "FROM SYSTEM_RANGE(?, ?)",
+                    participantsPerSession, from, Math.min(sessions, from + CHUNK_SIZE - 1));
+        }
+        long[] sessionIds = idRange("SESSIONS", "description = 'Load test session'");
+
+        long sessionsPerChunk = Math.max(1, CHUNK_SIZE / Math.max(1, participantsPerSession));
+        for (long from = sessionIds[0]; participantsPerSession > 0 && from <= sessionIds[1]; from += sessionsPerChunk) {
+            this.jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) "
+                            + "SELECT s.X, ? + MOD(s.X * ? + p.X, ?) "
+                            + "FROM SYSTEM_RANGE(?, ?) s, SYSTEM_RANGE(0, ?) p",
+                    userIds[0], participantsPerSession, users,
+                    from, Math.min(sessionIds[1], from + sessionsPerChunk - 1), participantsPerSession - 1);
+        }
+        return sessionIds;
+    }
+
+    private long[] idRange(String table, String condition) {
+        return this.jdbcTemplate.queryForObject(
+                "SELECT MIN(id), MAX(id) FROM " + table + " WHERE " + condition,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+}
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for the network and a busy server: every statement executed through the data source waits
+ * {@code latencyMillis} first, while holding its connection, as it would against a remote MySQL.
+ */
+class StatementLatency implements BeanPostProcessor {
+    private final long latencyMillis;
+
+    StatementLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && this.latencyMillis > 0) {
+            return proxy(DataSource.class, bean);
+        }
+        return bean;
+    }
+
+    private <T> T proxy(Class<T> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(target)) {
+                return target;
+            }
+            if (method.getName().equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(target)) {
+                return true;
+            }
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                TimeUnit.MILLISECONDS.sleep(this.latencyMillis);
+            }
+
+            Object result = invoke(method, target, args);
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result);
+            }
+            if (result instanceof Statement) {
+                return proxy(statementType(method.getReturnType()), result);
+            }
+            return result;
+        };
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Statement> statementType(Class<?> returnType) {
+        return Statement.class.isAssignableFrom(returnType) ? (Class<? extends Statement>) returnType : Statement.class;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DataSourceConfig {
+    /**
+     * Derives the pool size from the core count; without {@code oc.app.datasourceConnectionsPerCore}, the
+     * {@code spring.datasource.hikari.*} settings apply as they are. Static, like any post-processor, so that
+     * it is registered before the data source is created.
+     */
+    @Bean
+    @ConditionalOnProperty("oc.app.datasourceConnectionsPerCore")
+    public static BeanPostProcessor hikariPoolSizer(@Value("${oc.app.datasourceConnectionsPerCore}") int connectionsPerCore) {
+        return new HikariPoolSizer(connectionsPerCore);
+    }
+}
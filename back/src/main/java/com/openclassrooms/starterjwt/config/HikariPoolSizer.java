@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Gives the Hikari pool {@code connectionsPerCore} connections per core, plus one, as a fixed-size pool:
+ * more connections than the database can run at once only adds queuing and context switches on its side.
+ */
+@Log4j2
+public class HikariPoolSizer implements BeanPostProcessor {
+    private final int connectionsPerCore;
+
+    public HikariPoolSizer(int connectionsPerCore) {
+        this.connectionsPerCore = connectionsPerCore;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            int poolSize = Runtime.getRuntime().availableProcessors() * this.connectionsPerCore + 1;
+            HikariDataSource dataSource = (HikariDataSource) bean;
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMinimumIdle(poolSize);
+            log.info("Sized the {} connection pool to {} connections", beanName, poolSize);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,141 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Writes {@link Date} and {@link LocalDateTime} values, the dates of every session, teacher and user, straight
+ * into a char buffer. The text is the one Jackson produces with the default settings, ISO-8601 in UTC for dates
+ * and {@code ISO_LOCAL_DATE_TIME} for local date-times, without going through {@code DateFormat} or
+ * {@code DateTimeFormatter}, which take most of the time spent writing a session list.
+ * <p>
+ * With timestamps enabled, a time zone or a date format configured, or a year outside 0-9999 (1583-9999 for
+ * dates), the value is written by Jackson as before.
+ */
+public class IsoDateModule extends SimpleModule {
+    private static final JsonSerializer<Date> DATE_SERIALIZER = new DateSerializer();
+
+    private static final JsonSerializer<LocalDateTime> LOCAL_DATE_TIME_SERIALIZER = new IsoLocalDateTimeSerializer();
+
+    public IsoDateModule() {
+        super(IsoDateModule.class.getSimpleName());
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        super.setupModule(context);
+        // exact classes only: java.sql.Date and java.sql.Time extend Date but are written differently
+        context.addSerializers(new Serializers.Base() {
+            @Override
+            public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+                Class<?> raw = type.getRawClass();
+                if (raw == Date.class || raw == Timestamp.class) {
+                    return DATE_SERIALIZER;
+                }
+                return raw == LocalDateTime.class ? LOCAL_DATE_TIME_SERIALIZER : null;
+            }
+        });
+    }
+
+    private static final class DateSerializer extends StdSerializer<Date> {
+        DateSerializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public void serialize(Date value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    || provider.getConfig().getDateFormat() != StdDateFormat.instance) {
+                provider.defaultSerializeDateValue(value, generator);
+                return;
+            }
+
+            long millis = value.getTime();
+            LocalDateTime utc = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), 0, ZoneOffset.UTC);
+            // before 1583, DateFormat writes Julian calendar dates
+            if (utc.getYear() < 1583 || utc.getYear() > 9999) {
+                provider.defaultSerializeDateValue(value, generator);
+                return;
+            }
+
+            // yyyy-MM-ddTHH:mm:ss.SSS+00:00
+            char[] buffer = new char[29];
+            int length = writeDateTime(buffer, utc);
+            buffer[length++] = '.';
+            length = writeDigits(buffer, length, (int) Math.floorMod(millis, 1000L), 3);
+            "+00:00".getChars(0, 6, buffer, length);
+            generator.writeString(buffer, 0, length + 6);
+        }
+    }
+
+    private static final class IsoLocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+        IsoLocalDateTimeSerializer() {
+            super(LocalDateTime.class);
+        }
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    || value.getYear() < 0 || value.getYear() > 9999) {
+                LocalDateTimeSerializer.INSTANCE.serialize(value, generator, provider);
+                return;
+            }
+
+            // yyyy-MM-ddTHH:mm:ss, then the nanoseconds without their trailing zeros, if any
+            char[] buffer = new char[29];
+            int length = writeDateTime(buffer, value);
+            int nano = value.getNano();
+            if (nano != 0) {
+                int digits = 9;
+                while (nano % 10 == 0) {
+                    nano /= 10;
+                    digits--;
+                }
+                buffer[length++] = '.';
+                length = writeDigits(buffer, length, nano, digits);
+            }
+            generator.writeString(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Writes {@code yyyy-MM-ddTHH:mm:ss} at the start of the buffer.
+     */
+    private static int writeDateTime(char[] buffer, LocalDateTime value) {
+        int length = writeDigits(buffer, 0, value.getYear(), 4);
+        buffer[length++] = '-';
+        length = writeDigits(buffer, length, value.getMonthValue(), 2);
+        buffer[length++] = '-';
+        length = writeDigits(buffer, length, value.getDayOfMonth(), 2);
+        buffer[length++] = 'T';
+        length = writeDigits(buffer, length, value.getHour(), 2);
+        buffer[length++] = ':';
+        length = writeDigits(buffer, length, value.getMinute(), 2);
+        buffer[length++] = ':';
+        return writeDigits(buffer, length, value.getSecond(), 2);
+    }
+
+    private static int writeDigits(char[] buffer, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+}
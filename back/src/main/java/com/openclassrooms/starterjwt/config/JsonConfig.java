@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JsonConfig {
+    /**
+     * Picked up by the auto-configured ObjectMapper, after the Java time module, so that its serializers win.
+     */
+    @Bean
+    public Module isoDateModule() {
+        return new IsoDateModule();
+    }
+}
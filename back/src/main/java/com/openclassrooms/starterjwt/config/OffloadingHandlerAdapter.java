@@ -0,0 +1,109 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs controller methods on a fixed pool instead of the Tomcat thread: each call is handed to Spring MVC as a
+ * {@link WebAsyncTask}, the Tomcat thread goes back to the connector while the controller waits on the database,
+ * and the response is written on the asynchronous dispatch that follows. A server capped at a few request threads
+ * then holds as many slow requests as the pool has threads. Beyond the pool and {@code queueDepth} waiting calls,
+ * a request is refused with a 503 before anything is started.
+ * <p>
+ * Methods that already answer asynchronously, streamed bodies and event streams, are left on the Tomcat thread.
+ */
+public class OffloadingHandlerAdapter extends RequestMappingHandlerAdapter {
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Semaphore permits;
+
+    private final Counter rejected;
+
+    private final Timer queueTimer;
+
+    public OffloadingHandlerAdapter(int threads, int queueDepth, MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setThreadNamePrefix("request-");
+        this.executor.initialize();
+        this.permits = new Semaphore(threads + queueDepth);
+
+        this.rejected = Counter.builder("yoga.request.rejected")
+                .description("Requests refused because the request queue was full")
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("yoga.request.queue")
+                .description("Time spent by requests waiting for a request thread")
+                .register(meterRegistry);
+        Gauge.builder("yoga.request.queued", this.executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Requests waiting for a request thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (respondsAsynchronously(handlerMethod.getReturnType())) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        return new OffloadedHandlerMethod(handlerMethod);
+    }
+
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private static boolean respondsAsynchronously(MethodParameter returnType) {
+        Class<?> body = returnType.getParameterType();
+        if (ResponseEntity.class.isAssignableFrom(body)) {
+            body = ResolvableType.forMethodParameter(returnType).getGeneric().resolve(Object.class);
+        }
+        return StreamingResponseBody.class.isAssignableFrom(body) || ResponseBodyEmitter.class.isAssignableFrom(body);
+    }
+
+    private class OffloadedHandlerMethod extends ServletInvocableHandlerMethod {
+        OffloadedHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        /**
+         * Arguments are resolved on the Tomcat thread, the request body included; only the call itself moves.
+         */
+        @Override
+        protected Object doInvoke(Object... args) {
+            if (!permits.tryAcquire()) {
+                rejected.increment();
+                throw new ServiceUnavailableException("Too many concurrent requests, retry later");
+            }
+
+            long submittedAt = System.nanoTime();
+            return new WebAsyncTask<>(null, executor, () -> {
+                queueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return invoke(args);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        private Object invoke(Object... args) throws Exception {
+            return super.doInvoke(args);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+@Configuration
+@ConditionalOnProperty("oc.app.requestThreads")
+public class RequestExecutionConfig {
+    /**
+     * Runs controller methods on {@code oc.app.requestThreads} threads; without the property, they run on the
+     * Tomcat thread that read the request.
+     */
+    @Bean
+    public WebMvcRegistrations offloadingRegistrations(@Value("${oc.app.requestThreads}") int threads,
+                                                       @Value("${oc.app.requestQueueDepth}") int queueDepth,
+                                                       MeterRegistry meterRegistry) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new OffloadingHandlerAdapter(threads, queueDepth, meterRegistry);
+            }
+        };
+    }
+}
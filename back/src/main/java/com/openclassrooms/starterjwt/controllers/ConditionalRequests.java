@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * ETag and Last-Modified validation done before the resource is loaded or mapped.
+ */
+final class ConditionalRequests {
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Sets the validators on the response and tells whether the client's copy is current, in which case
+     * the response is already a 304 and the handler should return null.
+     */
+    static boolean notModified(WebRequest request, String version, LocalDateTime lastModified) {
+        long lastModifiedMillis = lastModified != null
+                ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0;
+        String etag = "\"" + version + "-" + lastModifiedMillis + "\"";
+
+        return lastModified != null
+                ? request.checkNotModified(etag, lastModifiedMillis)
+                : request.checkNotModified(etag);
+    }
+}
@@ -1,62 +1,280 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportDto;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
+import com.openclassrooms.starterjwt.events.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.repository.CollectionVersion;
+import com.openclassrooms.starterjwt.services.Participation;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionImportService;
+import com.openclassrooms.starterjwt.services.SessionReadModel;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int MAX_IMPORT_SIZE = 10000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionImportService sessionImportService;
+    private final ObjectMapper objectMapper;
+    private final SessionEventBroadcaster sessionEventBroadcaster;
+    private final SessionReadModel sessionReadModel;
+    private final long exportTimeoutMs;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionImportService sessionImportService,
+                             SessionMapper sessionMapper,
+                             ObjectMapper objectMapper,
+                             SessionEventBroadcaster sessionEventBroadcaster,
+                             SessionReadModel sessionReadModel,
+                             @Value("${oc.app.exportTimeoutMs}") long exportTimeoutMs) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionImportService = sessionImportService;
+        this.objectMapper = objectMapper;
+        this.sessionEventBroadcaster = sessionEventBroadcaster;
+        this.sessionReadModel = sessionReadModel;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest webRequest) {
         try {
+            if (this.sessionReadModel.isEnabled()) {
+                SessionDto sessionDto = this.sessionReadModel.findById(Long.valueOf(id));
+                if (sessionDto == null) {
+                    return ResponseEntity.notFound().build();
+                }
+                if (sessionDto.getUpdatedAt() != null
+                        && ConditionalRequests.notModified(webRequest, "session-" + id, sessionDto.getUpdatedAt())) {
+                    return null;
+                }
+                return ResponseEntity.ok().body(sessionDto);
+            }
+
+            LocalDateTime updatedAt = this.sessionService.getUpdatedAt(Long.valueOf(id));
+            if (updatedAt != null && ConditionalRequests.notModified(webRequest, "session-" + id, updatedAt)) {
+                return null;
+            }
+
             Session session = this.sessionService.getById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().body(this.toDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest webRequest) {
+        if (this.sessionReadModel.isEnabled()) {
+            SessionReadModel.Snapshot snapshot = this.sessionReadModel.getSnapshot();
+            if (ConditionalRequests.notModified(webRequest, "sessions-" + snapshot.getVersion(), snapshot.getLastModified())) {
+                return null;
+            }
+            return ResponseEntity.ok().body(snapshot.getSessions());
+        }
+
+        CollectionVersion version = this.sessionService.getCollectionVersion();
+        if (ConditionalRequests.notModified(webRequest, "sessions-" + version.getCount(), version.getLastModified())) {
+            return null;
+        }
+
         List<Session> sessions = this.sessionService.findAll();
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        return ResponseEntity.ok().body(this.toDto(sessions));
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> findPage(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(value = "teacherId", required = false) Long teacherId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+        List<Session> sessions = this.sessionService.findPage(from, to, teacherId, after, size + 1);
+
+        String nextCursor = null;
+        if (sessions.size() > size) {
+            sessions = sessions.subList(0, size);
+            nextCursor = SessionCursor.of(sessions.get(size - 1)).encode();
+        }
+
+        return ResponseEntity.ok().body(new SessionPageDto(this.toDto(sessions), nextCursor));
+    }
+
+    /**
+     * Streams every session as one JSON object per line, in id order. A client that lost the connection
+     * resumes with the id of the last line it received as {@code afterId}. The export may run for as long as
+     * {@code oc.app.exportTimeoutMs}; other asynchronous requests keep the default timeout.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = outputStream -> {
+            // the body runs once the request has gone asynchronous, so its context exists by now
+            request.getAsyncContext().setTimeout(this.exportTimeoutMs);
+
+            ObjectWriter writer = this.objectMapper.writerFor(SessionDto.class);
+            try (OutputStream out = gzip
+                    ? new GZIPOutputStream(outputStream, 8192, true)
+                    : new BufferedOutputStream(outputStream, 8192)) {
+                this.sessionService.export(afterId, EXPORT_CHUNK_SIZE, (chunk, participants) -> {
+                    try {
+                        for (SessionDto sessionDto : this.sessionMapper.toDto(chunk, participants)) {
+                            out.write(writer.writeValueAsBytes(sessionDto));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Whether gzip, or {@code *} when gzip is not listed, comes with a non-zero quality in the Accept-Encoding header.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            boolean accepted = quality(parameters) > 0;
+            if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                return accepted;
+            }
+            if ("*".equals(name)) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q') && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Pushes every change to sessions and their participants as it commits, one Server-Sent Event each,
+     * named after the {@link com.openclassrooms.starterjwt.events.SessionEvent.Type}; an import is a single
+     * {@code CHANGED} event.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                // keeps reverse proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(this.sessionEventBroadcaster.subscribe());
     }
 
     @PostMapping()
     public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
         log.info(sessionDto);
 
-        Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
+        try {
+            Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
+
+            log.info(session);
+            return ResponseEntity.ok().body(this.toDto(session));
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Creates the sessions without an id and replaces those with one, all or nothing: any invalid row
+     * rejects the whole import with the errors of every row.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkImport(@RequestBody List<SessionDto> sessionDtos) {
+        if (sessionDtos.isEmpty() || sessionDtos.size() > MAX_IMPORT_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: between 1 and " + MAX_IMPORT_SIZE + " sessions per import"));
+        }
 
-        log.info(session);
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+        SessionImportDto result = this.sessionImportService.importSessions(sessionDtos);
+        if (!result.getErrors().isEmpty()) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok().body(result);
     }
 
     @PutMapping("{id}")
@@ -64,9 +282,11 @@ public class SessionController {
         try {
             Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().body(this.toDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse(e.getMessage()));
         }
     }
 
@@ -89,8 +309,11 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            Participation participation = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
+            if (participation == Participation.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
@@ -107,4 +330,16 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private SessionDto toDto(Session session) {
+        return this.sessionMapper.toDto(session, this.sessionService.findParticipantIds(session.getId()));
+    }
+
+    /**
+     * Reads the participants of the whole list with one query over PARTICIPATE instead of one per session.
+     */
+    private List<SessionDto> toDto(List<Session> sessions) {
+        return this.sessionMapper.toDto(sessions, this.sessionService.findParticipantIds(
+                sessions.stream().map(Session::getId).collect(Collectors.toList())));
+    }
 }
@@ -1,7 +1,9 @@
 package com.openclassrooms.starterjwt.controllers;
 
-import com.openclassrooms.starterjwt.mapper.UserMapper;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,32 +11,57 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
-    private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
+    private final SessionMapper sessionMapper;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
-        this.userMapper = userMapper;
+                             SessionService sessionService,
+                             SessionMapper sessionMapper) {
         this.userService = userService;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> findById(@PathVariable("id") String id) {
         try {
-            User user = this.userService.findById(Long.valueOf(id));
+            UserDto user = this.userService.findById(Long.valueOf(id));
 
             if (user == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.userMapper.toDto(user));
+            return ResponseEntity.ok().body(user);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * The sessions the user participates in, by date.
+     */
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id) {
+        try {
+            UserDto user = this.userService.findById(Long.valueOf(id));
+
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            List<Session> sessions = this.sessionService.findByParticipant(user.getId());
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions, this.sessionService.findParticipantIds(
+                    sessions.stream().map(Session::getId).collect(Collectors.toList()))));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -43,7 +70,7 @@ public class UserController {
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
-            User user = this.userService.findById(Long.valueOf(id));
+            UserDto user = this.userService.findById(Long.valueOf(id));
 
             if (user == null) {
                 return ResponseEntity.notFound().build();
@@ -0,0 +1,167 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * The ids of the users taking part in a session, as a sorted {@code long[]} without duplicates: membership
+ * is a binary search and iterating boxes nothing. Immutable, so a snapshot can share it. Read and written
+ * in JSON as a plain array of ids, nulls in the input being skipped.
+ */
+@JsonSerialize(using = ParticipantIds.Serializer.class)
+@JsonDeserialize(using = ParticipantIds.Deserializer.class)
+public final class ParticipantIds {
+    private static final ParticipantIds EMPTY = new ParticipantIds(new long[0]);
+
+    private final long[] ids;
+
+    private ParticipantIds(long[] ids) {
+        this.ids = ids;
+    }
+
+    public static ParticipantIds empty() {
+        return EMPTY;
+    }
+
+    public static ParticipantIds of(long... ids) {
+        return sorted(Arrays.copyOf(ids, ids.length), ids.length);
+    }
+
+    public static ParticipantIds of(Collection<Long> ids) {
+        long[] values = new long[ids.size()];
+        int length = 0;
+        for (Long id : ids) {
+            if (id != null) {
+                values[length++] = id;
+            }
+        }
+        return sorted(values, length);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(this.ids, id) >= 0;
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    public boolean isEmpty() {
+        return this.ids.length == 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (long id : this.ids) {
+            action.accept(id);
+        }
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(this.ids);
+    }
+
+    public long[] toArray() {
+        return this.ids.clone();
+    }
+
+    public List<Long> toList() {
+        return this.stream().boxed().collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ParticipantIds && Arrays.equals(this.ids, ((ParticipantIds) o).ids);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.ids);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.ids);
+    }
+
+    /**
+     * Sorts the first {@code length} values in place and drops the duplicates.
+     */
+    private static ParticipantIds sorted(long[] values, int length) {
+        if (length == 0) {
+            return EMPTY;
+        }
+
+        Arrays.sort(values, 0, length);
+        int distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (values[i] != values[distinct - 1]) {
+                values[distinct++] = values[i];
+            }
+        }
+        return new ParticipantIds(distinct == values.length ? values : Arrays.copyOf(values, distinct));
+    }
+
+    /**
+     * Collects ids in any order, duplicates included.
+     */
+    public static final class Builder {
+        private long[] values = new long[8];
+
+        private int length;
+
+        private Builder() {
+        }
+
+        public Builder add(long id) {
+            if (this.length == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.length * 2);
+            }
+            this.values[this.length++] = id;
+            return this;
+        }
+
+        public ParticipantIds build() {
+            return sorted(Arrays.copyOf(this.values, this.length), this.length);
+        }
+    }
+
+    static final class Serializer extends StdSerializer<ParticipantIds> {
+        Serializer() {
+            super(ParticipantIds.class);
+        }
+
+        @Override
+        public void serialize(ParticipantIds value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeArray(value.ids, 0, value.ids.length);
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<ParticipantIds> {
+        Deserializer() {
+            super(ParticipantIds.class);
+        }
+
+        @Override
+        public ParticipantIds deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return ParticipantIds.of(Arrays.asList(context.readValue(parser, Long[].class)));
+        }
+    }
+}
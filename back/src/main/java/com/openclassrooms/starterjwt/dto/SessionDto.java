@@ -4,12 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
-import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -31,7 +31,15 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
-    private List<Long> users;
+    @Min(1)
+    private Integer capacity;
+
+    private ParticipantIds users;
+
+    /**
+     * Seats taken, read from the counter maintained on the session; ignored on input.
+     */
+    private Integer participantCount;
 
     private LocalDateTime createdAt;
 
@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionImportDto {
+    private int created;
+
+    private int updated;
+
+    /** Ids of the imported sessions, in request order. */
+    private List<Long> ids;
+
+    private List<RowError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int index;
+
+        private List<String> messages;
+    }
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change to one session, published once its transaction commits and pushed as is to subscribers:
+ * only what changed, never the participant list. A bulk change is one {@link Type#CHANGED} event for all
+ * the sessions it touched, so that it costs subscribers one message rather than one per row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        PARTICIPATED,
+        LEFT,
+        /**
+         * Many sessions created or replaced at once: subscribers are told how many and reload the list.
+         */
+        CHANGED
+    }
+
+    private Type type;
+
+    private Long sessionId;
+
+    private Integer participantCount;
+
+    /**
+     * The user who joined or left, for {@link Type#PARTICIPATED} and {@link Type#LEFT}.
+     */
+    private Long userId;
+
+    /**
+     * The session fields as written, for {@link Type#CREATED} and {@link Type#UPDATED}, named as in {@link SessionDto}.
+     */
+    private Map<String, Object> fields;
+
+    /**
+     * The number of sessions changed, for {@link Type#CHANGED}.
+     */
+    private Integer sessionCount;
+
+    /**
+     * The sessions changed, for {@link Type#CHANGED}: for the listeners in this process, not pushed to subscribers.
+     */
+    @JsonIgnore
+    private List<Long> sessionIds;
+
+    public static SessionEvent saved(Type type, Session session, int participantCount) {
+        return new SessionEvent(type, session.getId(), participantCount, null, fields(session.getName(), session.getDate(),
+                session.getDescription(), session.getCapacity(), session.getTeacher() != null ? session.getTeacher().getId() : null),
+                null, null);
+    }
+
+    public static SessionEvent saved(Type type, SessionDto sessionDto, int participantCount) {
+        return new SessionEvent(type, sessionDto.getId(), participantCount, null, fields(sessionDto.getName(), sessionDto.getDate(),
+                sessionDto.getDescription(), sessionDto.getCapacity(), sessionDto.getTeacher_id()), null, null);
+    }
+
+    public static SessionEvent deleted(Long sessionId) {
+        return new SessionEvent(Type.DELETED, sessionId, null, null, null, null, null);
+    }
+
+    public static SessionEvent participation(Type type, Long sessionId, Long userId, int participantCount) {
+        return new SessionEvent(type, sessionId, participantCount, userId, null, null, null);
+    }
+
+    public static SessionEvent changed(List<Long> sessionIds) {
+        return new SessionEvent(Type.CHANGED, null, null, null, null, sessionIds.size(), sessionIds);
+    }
+
+    /**
+     * Every session this event is about, whatever its type.
+     */
+    @JsonIgnore
+    public Collection<Long> getChangedIds() {
+        return this.type == Type.CHANGED ? this.sessionIds : Collections.singletonList(this.sessionId);
+    }
+
+    private static Map<String, Object> fields(String name, Date date, String description, Integer capacity, Long teacherId) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", name);
+        fields.put("date", date);
+        fields.put("description", description);
+        fields.put("capacity", capacity);
+        fields.put("teacher_id", teacherId);
+        return fields;
+    }
+}
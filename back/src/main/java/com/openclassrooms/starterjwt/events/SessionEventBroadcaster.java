@@ -0,0 +1,219 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes {@link SessionEvent}s to every subscriber over Server-Sent Events. Subscribers are async requests:
+ * an idle one holds a connection but no request thread. Events are serialized once and queued for each
+ * subscriber in commit order by a single thread; a pool of sender threads writes each queue out. A subscriber
+ * that cannot be written to, or that falls {@code oc.app.sessionEventsQueueDepth} messages behind, is dropped,
+ * so a slow client only ever delays itself.
+ */
+@Component
+@Log4j2
+public class SessionEventBroadcaster {
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /** Subscribers plus the subscriptions being opened, checked against the cap in one step. */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("session-events-"));
+
+    private final ExecutorService senders;
+
+    private final ObjectMapper objectMapper;
+
+    private final Timer fanOut;
+
+    private final Counter droppedSubscribers;
+
+    private final long timeoutMs;
+
+    private final int maxSubscribers;
+
+    private final int queueDepth;
+
+    public SessionEventBroadcaster(ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${oc.app.sessionEventsTimeoutMs}") long timeoutMs,
+                                   @Value("${oc.app.sessionEventsHeartbeatMs}") long heartbeatMs,
+                                   @Value("${oc.app.sessionEventsMaxSubscribers}") int maxSubscribers,
+                                   @Value("${oc.app.sessionEventsQueueDepth}") int queueDepth,
+                                   @Value("${oc.app.sessionEventsSenderThreads}") int senderThreads) {
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.queueDepth = queueDepth;
+        this.senders = Executors.newFixedThreadPool(
+                senderThreads > 0 ? senderThreads : Runtime.getRuntime().availableProcessors(),
+                new CustomizableThreadFactory("session-events-sender-"));
+
+        this.fanOut = Timer.builder("yoga.session.events.fanout")
+                .description("Time from commit to the event queued for every subscriber")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("yoga.session.events.dropped")
+                .description("Subscribers dropped for falling too far behind")
+                .register(meterRegistry);
+        Gauge.builder("yoga.session.events.subscribers", this.subscribers, Set::size)
+                .description("Open Server-Sent Events subscriptions")
+                .register(meterRegistry);
+
+        // idle connections are only found dead when written to, and proxies close the silent ones
+        this.executor.scheduleWithFixedDelay(() -> this.broadcast(() -> SseEmitter.event().comment("heartbeat")),
+                heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        return this.subscribe(new SseEmitter(this.timeoutMs));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (this.reserved.incrementAndGet() > this.maxSubscribers) {
+            this.reserved.decrementAndGet();
+            throw new ServiceUnavailableException("Error: too many subscribers to session events");
+        }
+
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> this.remove(subscriber));
+        emitter.onError(e -> this.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        try {
+            // commits the response headers so that the client knows it is subscribed
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            this.reserved.decrementAndGet();
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        this.subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(SessionEvent event) {
+        String data;
+        try {
+            data = this.objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {}", event, e);
+            return;
+        }
+
+        long committedAt = System.nanoTime();
+        this.executor.execute(() -> {
+            this.broadcast(() -> SseEmitter.event().name(event.getType().name()).data(data));
+            this.fanOut.record(System.nanoTime() - committedAt, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.senders.shutdownNow();
+        this.subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * A builder per subscriber: building one appends to it, so it cannot be sent twice.
+     */
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> message) {
+        for (Subscriber subscriber : this.subscribers) {
+            subscriber.enqueue(message);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (this.subscribers.remove(subscriber)) {
+            this.reserved.decrementAndGet();
+        }
+    }
+
+    /**
+     * The messages not yet written to one client. At most one sender drains it at a time, so they go out in order.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue =
+                new LinkedBlockingQueue<>(SessionEventBroadcaster.this.queueDepth);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(Supplier<SseEmitter.SseEventBuilder> message) {
+            if (!this.queue.offer(message)) {
+                // the sender may be blocked writing to it: the emitter is completed by the drain, not here
+                this.dropped = true;
+                this.queue.clear();
+                SessionEventBroadcaster.this.remove(this);
+                SessionEventBroadcaster.this.droppedSubscribers.increment();
+            }
+            this.scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (this.draining.compareAndSet(false, true)) {
+                SessionEventBroadcaster.this.senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            Supplier<SseEmitter.SseEventBuilder> message;
+            while (!this.dropped && (message = this.queue.poll()) != null) {
+                try {
+                    this.emitter.send(message.get());
+                } catch (IOException | IllegalStateException e) {
+                    // gone or already completed: the container reports the error, we only stop writing
+                    this.dropped = true;
+                    SessionEventBroadcaster.this.remove(this);
+                }
+            }
+            if (this.dropped) {
+                this.queue.clear();
+                this.emitter.complete();
+                return;
+            }
+
+            this.draining.set(false);
+            if (!this.queue.isEmpty() || this.dropped) {
+                this.scheduleDrain();
+            }
+        }
+    }
+}
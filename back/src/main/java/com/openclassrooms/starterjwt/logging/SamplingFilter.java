@@ -0,0 +1,35 @@
+package com.openclassrooms.starterjwt.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one event in {@code every} through, so that a logger on the request path costs a fraction of its
+ * full volume while still showing what runs.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+    private final AtomicLong count = new AtomicLong();
+
+    private int every = 1;
+
+    public void setEvery(int every) {
+        this.every = every;
+    }
+
+    @Override
+    public void start() {
+        if (this.every < 1) {
+            addError("every must be at least 1");
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        return this.count.getAndIncrement() % this.every == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
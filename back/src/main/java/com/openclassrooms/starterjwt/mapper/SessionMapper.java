@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.mapper;
 
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.TeacherService;
@@ -8,35 +10,105 @@ import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
-@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
-public abstract class SessionMapper implements EntityMapper<SessionDto, Session> {
+@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {ArrayList.class, Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
+public abstract class SessionMapper {
 
     @Autowired
     TeacherService teacherService;
     @Autowired
     UserService userService;
 
+    @Named("withoutReferences")
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "participantCount", ignore = true),
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
     })
-    public abstract Session toEntity(SessionDto sessionDto);
+    abstract Session toEntityWithoutReferences(SessionDto sessionDto);
 
+    /**
+     * Resolves the teacher and every participant with at most two queries, and rejects the session
+     * with a single error listing all the ids that were not found, and more participants than seats if so.
+     */
+    public Session toEntity(SessionDto sessionDto) {
+        if (sessionDto == null) {
+            return null;
+        }
+
+        List<String> errors = new ArrayList<>();
+
+        Long teacherId = sessionDto.getTeacher_id();
+        boolean teacherExists = teacherId != null && this.teacherService.findById(teacherId) != null;
+        if (teacherId != null && !teacherExists) {
+            errors.add("unknown teacher id " + teacherId);
+        }
+
+        List<Long> userIds = Optional.ofNullable(sessionDto.getUsers()).orElseGet(ParticipantIds::empty).toList();
+        Map<Long, User> users = userIds.isEmpty() ? Collections.emptyMap() : this.userService.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<Long> unknownUserIds = userIds.stream().filter(id -> !users.containsKey(id)).collect(Collectors.toList());
+        if (!unknownUserIds.isEmpty()) {
+            errors.add("unknown user ids " + unknownUserIds);
+        }
+        if (sessionDto.getCapacity() != null && userIds.size() > sessionDto.getCapacity()) {
+            errors.add("capacity " + sessionDto.getCapacity() + " is lower than the " + userIds.size() + " participants");
+        }
+
+        if (!errors.isEmpty()) {
+            throw new BadRequestException("Error: " + String.join(", ", errors));
+        }
+
+        return this.toEntityWithoutReferences(sessionDto)
+                .setTeacher(teacherExists ? this.teacherService.getReference(teacherId) : null)
+                .setUsers(userIds.stream().map(users::get).collect(Collectors.toList()));
+    }
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
+            @Mapping(target = "users", ignore = true),
     })
-    public abstract SessionDto toDto(Session session);
+    abstract SessionDto toDtoWithoutParticipants(Session session);
+
+    /**
+     * Maps the session with its participant ids, read beforehand by the caller: mapping runs no query.
+     */
+    public SessionDto toDto(Session session, ParticipantIds participants) {
+        if (session == null) {
+            return null;
+        }
+
+        SessionDto sessionDto = this.toDtoWithoutParticipants(session);
+        sessionDto.setUsers(participants != null ? participants : ParticipantIds.empty());
+        return sessionDto;
+    }
+
+    /**
+     * Maps the sessions with their participant ids, read beforehand by the caller for the whole list at once
+     * and keyed by session id; a session missing from the map has none.
+     */
+    public List<SessionDto> toDto(List<Session> sessions, Map<Long, ParticipantIds> participants) {
+        if (sessions == null) {
+            return null;
+        }
+
+        return sessions.stream()
+                .map(session -> this.toDto(session, participants.get(session.getId())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    private final ControllerMetricsInterceptor controllerMetricsInterceptor;
+
+    public MetricsConfig(ControllerMetricsInterceptor controllerMetricsInterceptor) {
+        this.controllerMetricsInterceptor = controllerMetricsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this.controllerMetricsInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Changes whenever a row of the collection is created, updated or deleted.
+ */
+public interface CollectionVersion {
+    long getCount();
+
+    LocalDateTime getLastModified();
+}
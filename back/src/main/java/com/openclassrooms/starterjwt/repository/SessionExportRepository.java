@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.stream.Stream;
+
+public interface SessionExportRepository {
+    /**
+     * Forward-only cursor over every session after {@code afterId}, in id order; must be consumed
+     * (and closed) inside a transaction, without running other statements on its connection meanwhile.
+     */
+    Stream<Session> streamAll(Long afterId);
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+/**
+ * The fetch size comes from the configuration: MySQL Connector/J only streams the rows of this one query
+ * when it is {@link Integer#MIN_VALUE}, a value other drivers reject.
+ */
+class SessionExportRepositoryImpl implements SessionExportRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${oc.app.exportFetchSize}")
+    private int exportFetchSize;
+
+    @Override
+    public Stream<Session> streamAll(Long afterId) {
+        return this.entityManager.createQuery("SELECT s FROM Session s LEFT JOIN FETCH s.teacher"
+                        + " WHERE (:afterId IS NULL OR s.id > :afterId)"
+                        + " ORDER BY s.id ASC", Session.class)
+                .setParameter("afterId", afterId)
+                .setHint(HINT_FETCH_SIZE, this.exportFetchSize)
+                .setHint(HINT_READONLY, true)
+                .setHint(HINT_CACHEABLE, false)
+                .getResultStream();
+    }
+}
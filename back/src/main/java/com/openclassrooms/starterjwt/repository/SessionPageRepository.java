@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+public interface SessionPageRepository {
+    /**
+     * Keyset page ordered by (date, id): resumes strictly after (afterDate, afterId) so that
+     * the cost of a page does not depend on how many sessions precede it. Every filter is optional.
+     */
+    List<Session> findPage(Date from, Date to, Long teacherId, Date afterDate, Long afterId, Pageable pageable);
+}
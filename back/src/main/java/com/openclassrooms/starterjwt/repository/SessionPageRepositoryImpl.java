@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Only the filters that are set go into the statement: written as {@code :x IS NULL OR ...}, a filter on the
+ * date is an OR that the database cannot turn into a range on the (date, id) index, and every page starts
+ * from a scan of SESSIONS.
+ */
+class SessionPageRepositoryImpl implements SessionPageRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Session> findPage(Date from, Date to, Long teacherId, Date afterDate, Long afterId, Pageable pageable) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (from != null) {
+            conditions.add("s.date >= :from");
+            parameters.put("from", from);
+        }
+        if (to != null) {
+            conditions.add("s.date < :to");
+            parameters.put("to", to);
+        }
+        if (teacherId != null) {
+            conditions.add("t.id = :teacherId");
+            parameters.put("teacherId", teacherId);
+        }
+        if (afterDate != null) {
+            conditions.add("(s.date > :afterDate OR (s.date = :afterDate AND s.id > :afterId))");
+            parameters.put("afterDate", afterDate);
+            parameters.put("afterId", afterId);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT s FROM Session s LEFT JOIN FETCH s.teacher t");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY s.date ASC, s.id ASC");
+
+        TypedQuery<Session> query = this.entityManager.createQuery(jpql.toString(), Session.class);
+        parameters.forEach(query::setParameter);
+        return query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * One PARTICIPATE row, read without hydrating the {@link com.openclassrooms.starterjwt.models.User}.
+ */
+public interface SessionParticipant {
+    Long getSessionId();
+
+    Long getUserId();
+}
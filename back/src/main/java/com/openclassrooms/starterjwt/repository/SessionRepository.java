@@ -1,9 +1,91 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionExportRepository, SessionPageRepository {
+    @Override
+    @EntityGraph(attributePaths = {"teacher"})
+    List<Session> findAll();
+
+    /**
+     * Sessions of one participant, found through the PARTICIPATE (user_id, session_id) index. The ids come from
+     * a subquery: joined to the outer join on teachers instead, H2 starts from a scan of SESSIONS.
+     */
+    @Query("SELECT s FROM Session s LEFT JOIN FETCH s.teacher"
+            + " WHERE s.id IN (SELECT ps.id FROM Session ps JOIN ps.users u WHERE u.id = :userId)"
+            + " ORDER BY s.date ASC, s.id ASC")
+    List<Session> findByParticipant(@Param("userId") Long userId);
+
+    @Query("SELECT s.updatedAt FROM Session s WHERE s.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    @Query("SELECT s.participantCount FROM Session s WHERE s.id = :id")
+    Optional<Integer> findParticipantCountById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS lastModified FROM Session s")
+    CollectionVersion findCollectionVersion();
+
+    @Query("SELECT s.id FROM Session s WHERE s.id IN (:ids)")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT p.session_id AS sessionId, p.user_id AS userId FROM PARTICIPATE p"
+            + " WHERE p.session_id IN (:sessionIds)", nativeQuery = true)
+    List<SessionParticipant> findParticipants(@Param("sessionIds") Collection<Long> sessionIds);
+
+    /**
+     * Fails with a constraint violation if the user already participates, or if either side does not exist.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Takes one seat if there is one left, in a single conditional update: the row lock it holds until commit
+     * is what keeps concurrent sign-ups from overselling.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count + 1, updated_at = :now"
+            + " WHERE id = :id AND (capacity IS NULL OR participant_count < capacity)", nativeQuery = true)
+    int reserveSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count - 1, updated_at = :now"
+            + " WHERE id = :id AND participant_count > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE SESSIONS SET participant_count ="
+            + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id), updated_at = :now WHERE id = :id", nativeQuery = true)
+    int syncParticipantCount(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Locks the session row without loading the entity, returning null if it does not exist.
+     */
+    @Query(value = "SELECT id FROM SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(u) FROM Session s JOIN s.users u WHERE s.id = :sessionId AND u.id = :userId")
+    long countParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
 }
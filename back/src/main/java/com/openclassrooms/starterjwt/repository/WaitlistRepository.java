@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    /**
+     * Fails with a constraint violation if the user is already waiting, or if either side does not exist.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO WAITLIST (session_id, user_id, created_at) VALUES (:sessionId, :userId, CURRENT_TIMESTAMP)", nativeQuery = true)
+    int addToWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeFromWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId"
+            + " AND user_id IN (SELECT p.user_id FROM PARTICIPATE p WHERE p.session_id = :sessionId)", nativeQuery = true)
+    int removeParticipantsFromWaitlist(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId", nativeQuery = true)
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+
+    @Query("SELECT w.user.id FROM WaitlistEntry w WHERE w.session.id = :sessionId ORDER BY w.id ASC")
+    List<Long> findNextUserIds(@Param("sessionId") Long sessionId, Pageable pageable);
+
+    long countBySessionId(Long sessionId);
+
+    @Query("SELECT DISTINCT w.session.id FROM WaitlistEntry w WHERE w.session.id IN (:sessionIds)")
+    List<Long> findSessionIdsWithWaitlist(@Param("sessionIds") Collection<Long> sessionIds);
+}
@@ -1,8 +1,14 @@
 package com.openclassrooms.starterjwt.security;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -10,14 +16,19 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.services.BoundedPasswordEncoder;
+import com.openclassrooms.starterjwt.security.services.ExactStrengthBCryptPasswordEncoder;
+import com.openclassrooms.starterjwt.security.services.IterationCountPbkdf2PasswordEncoder;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(
@@ -31,6 +42,29 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  /** 0 means one thread per available core. */
+  @Value("${oc.app.passwordHashingThreads}")
+  private int passwordHashingThreads;
+
+  @Value("${oc.app.passwordHashingQueueDepth}")
+  private int passwordHashingQueueDepth;
+
+  /** Algorithm of newly written hashes: bcrypt or pbkdf2. */
+  @Value("${oc.app.passwordAlgorithm}")
+  private String passwordAlgorithm;
+
+  @Value("${oc.app.passwordBcryptStrength}")
+  private int passwordBcryptStrength;
+
+  @Value("${oc.app.passwordPbkdf2Iterations}")
+  private int passwordPbkdf2Iterations;
+
+  /** Port of the management server when management.server.port is set, -1 otherwise. */
+  private volatile int managementPort = -1;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -49,7 +83,29 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    int threads = passwordHashingThreads > 0 ? passwordHashingThreads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(hashingProfile(), threads, passwordHashingQueueDepth, meterRegistry);
+  }
+
+  /**
+   * Hashes with the configured algorithm and cost, still verifies every other supported one, and reports
+   * any hash written with another algorithm or cost as needing an upgrade; the authentication provider then
+   * rehashes it after a successful login through {@link UserDetailsServiceImpl#updatePassword}.
+   * Hashes without an {id} prefix predate this setup and are read as bcrypt.
+   */
+  private PasswordEncoder hashingProfile() {
+    ExactStrengthBCryptPasswordEncoder bcrypt = new ExactStrengthBCryptPasswordEncoder(passwordBcryptStrength);
+
+    Map<String, PasswordEncoder> encoders = new HashMap<>();
+    encoders.put("bcrypt", bcrypt);
+    encoders.put("pbkdf2", new IterationCountPbkdf2PasswordEncoder(passwordPbkdf2Iterations));
+    if (!encoders.containsKey(passwordAlgorithm)) {
+      throw new IllegalArgumentException("Unsupported oc.app.passwordAlgorithm " + passwordAlgorithm + ", expected one of " + encoders.keySet());
+    }
+
+    DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(passwordAlgorithm, encoders);
+    passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return passwordEncoder;
   }
 
   @Override
@@ -58,9 +114,23 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
       .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
       .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
       .authorizeRequests().antMatchers("/api/auth/**").permitAll()
+      .antMatchers("/actuator/health", "/livez", "/readyz").permitAll()
+      .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
+      .antMatchers("/actuator/**").denyAll()
       .antMatchers("/api/**").authenticated()
       .anyRequest().authenticated();
 
     http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
   }
+
+  /**
+   * The actuator endpoints other than health are only served on the management port, which is bound to
+   * the loopback interface, so that scrapers on the host need no token and nothing else can reach them.
+   */
+  @EventListener
+  public void onWebServerInitialized(WebServerInitializedEvent event) {
+    if ("management".equals(event.getApplicationContext().getServerNamespace())) {
+      managementPort = event.getWebServer().getPort();
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,52 +9,167 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  private static final String ID_CLAIM = "id";
+  private static final String FIRST_NAME_CLAIM = "firstName";
+  private static final String LAST_NAME_CLAIM = "lastName";
+  private static final String ADMIN_CLAIM = "admin";
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  /**
+   * Claims of tokens whose signature has already been verified, kept until the token expires
+   * (or the TTL elapses, whichever comes first) so that a client's repeat calls skip the HMAC.
+   */
+  private final Cache<String, Claims> claimsCache;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Timer signTimer;
+
+  private final Timer parseTimer;
+
+  public JwtUtils(@Value("${oc.app.jwtCacheMaxSize}") long cacheMaxSize,
+                  @Value("${oc.app.jwtCacheTtlMs}") long cacheTtlMs,
+                  MeterRegistry meterRegistry) {
+    this.claimsCache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new ClaimsExpiry(TimeUnit.MILLISECONDS.toNanos(cacheTtlMs)))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.claimsCache, "jwt");
+
+    this.meterRegistry = meterRegistry;
+    this.signTimer = Timer.builder("yoga.jwt.sign")
+        .description("Time spent building and signing a token")
+        .register(meterRegistry);
+    this.parseTimer = Timer.builder("yoga.jwt.parse")
+        .description("Time spent verifying a token that was not in the claims cache")
+        .register(meterRegistry);
+  }
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
+    return signTimer.record(() -> Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(ID_CLAIM, userPrincipal.getId())
+        .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+        .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
+        .claim(ADMIN_CLAIM, userPrincipal.getAdmin())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(SignatureAlgorithm.HS512, jwtSecret)
-        .compact();
+        .compact());
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return getClaimsFromJwtToken(token).getSubject();
+  }
+
+  /**
+   * Builds the principal from the verified claims alone, or returns null for a token
+   * issued before they were added.
+   */
+  public UserDetailsImpl getUserDetailsFromJwtToken(String token) {
+    Claims claims = getClaimsFromJwtToken(token);
+    if (claims.get(ID_CLAIM) == null) {
+      return null;
+    }
+
+    return UserDetailsImpl
+            .builder()
+            .id(claims.get(ID_CLAIM, Long.class))
+            .username(claims.getSubject())
+            .firstName(claims.get(FIRST_NAME_CLAIM, String.class))
+            .lastName(claims.get(LAST_NAME_CLAIM, String.class))
+            .admin(claims.get(ADMIN_CLAIM, Boolean.class))
+            .build();
+  }
+
+  /**
+   * Verifies the token on first sight only; an invalid token throws and is never cached.
+   */
+  public Claims getClaimsFromJwtToken(String token) {
+    return claimsCache.get(token, key -> parseTimer.record(
+        () -> Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(key).getBody()));
   }
 
   public boolean validateJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
+      getClaimsFromJwtToken(authToken);
       return true;
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
+      rejected("signature");
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
+      rejected("malformed");
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+      rejected("expired");
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+      rejected("unsupported");
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
+      rejected("empty");
     }
 
     return false;
   }
+
+  private void rejected(String reason) {
+    Counter.builder("yoga.jwt.rejected")
+        .description("Tokens refused by validateJwtToken")
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private static class ClaimsExpiry implements Expiry<String, Claims> {
+    private final long ttlNanos;
+
+    ClaimsExpiry(long ttlNanos) {
+      this.ttlNanos = ttlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+      if (claims.getExpiration() == null) {
+        return ttlNanos;
+      }
+      long untilExpiration = TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+      return Math.max(0, Math.min(ttlNanos, untilExpiration));
+    }
+
+    @Override
+    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
 }
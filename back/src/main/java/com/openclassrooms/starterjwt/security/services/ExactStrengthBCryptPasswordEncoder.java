@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Flags any hash whose cost differs from the configured strength, so that lowering the strength
+ * rehashes on login too; the stock encoder only ever upgrades.
+ */
+public class ExactStrengthBCryptPasswordEncoder extends BCryptPasswordEncoder {
+  private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+  private final int strength;
+
+  public ExactStrengthBCryptPasswordEncoder(int strength) {
+    super(strength);
+    this.strength = strength;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null || encodedPassword.isEmpty()) {
+      return false;
+    }
+
+    Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Encoded password does not look like BCrypt");
+    }
+    return Integer.parseInt(matcher.group(2)) != strength;
+  }
+}
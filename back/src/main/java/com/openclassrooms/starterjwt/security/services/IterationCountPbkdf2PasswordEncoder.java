@@ -0,0 +1,70 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+/**
+ * PBKDF2-HMAC-SHA1 with a 16-byte salt and a 256-bit hash, written as {@code <iterations>$<hex>} so that
+ * changing the iteration count still verifies the existing hashes and flags them for a rehash, like
+ * {@link ExactStrengthBCryptPasswordEncoder} does with the bcrypt cost. The stock encoder does not record
+ * the count. Hashes without one were written by it with {@link #LEGACY_ITERATIONS}.
+ */
+public class IterationCountPbkdf2PasswordEncoder implements PasswordEncoder {
+  static final int LEGACY_ITERATIONS = 185000;
+
+  private final int iterations;
+
+  private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+  public IterationCountPbkdf2PasswordEncoder(int iterations) {
+    this.iterations = iterations;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return iterations + "$" + encoder(iterations).encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    if (encodedPassword == null || encodedPassword.isEmpty()) {
+      return false;
+    }
+
+    int separator = encodedPassword.indexOf('$');
+    if (separator < 0) {
+      return encoder(LEGACY_ITERATIONS).matches(rawPassword, encodedPassword);
+    }
+    return encoder(iterationsOf(encodedPassword, separator)).matches(rawPassword, encodedPassword.substring(separator + 1));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null || encodedPassword.isEmpty()) {
+      return false;
+    }
+
+    int separator = encodedPassword.indexOf('$');
+    // a legacy hash is rewritten with its count even when it matches, so that it survives the next change
+    return separator < 0 || iterationsOf(encodedPassword, separator) != iterations;
+  }
+
+  private static int iterationsOf(String encodedPassword, int separator) {
+    try {
+      int count = Integer.parseInt(encodedPassword.substring(0, separator));
+      if (count > 0) {
+        return count;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("Encoded password does not look like PBKDF2");
+  }
+
+  private Pbkdf2PasswordEncoder encoder(int count) {
+    return encoders.computeIfAbsent(count, c -> new Pbkdf2PasswordEncoder("", 16, c, 256));
+  }
+}
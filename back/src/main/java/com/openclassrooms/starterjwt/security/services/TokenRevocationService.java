@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In-memory denylist of users whose tokens must be refused even though their signature is valid.
+ * An entry only needs to outlive the longest-lived token, so entries expire after the JWT lifetime.
+ */
+@Service
+public class TokenRevocationService {
+  private final Cache<Long, Boolean> revokedUserIds;
+
+  TokenRevocationService(@Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs) {
+    this.revokedUserIds = Caffeine.newBuilder()
+        .expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  public void revokeUser(Long userId) {
+    revokedUserIds.put(userId, Boolean.TRUE);
+  }
+
+  public boolean isRevoked(Long userId) {
+    return revokedUserIds.getIfPresent(userId) != null;
+  }
+}
@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -9,18 +11,26 @@ import org.springframework.transaction.annotation.Transactional;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
   UserRepository userRepository;
 
-  UserDetailsServiceImpl(UserRepository userRepository) {
+  private final Timer loadUserTimer;
+
+  UserDetailsServiceImpl(UserRepository userRepository, MeterRegistry meterRegistry) {
     this.userRepository = userRepository;
+    this.loadUserTimer = Timer.builder("yoga.security.user.load")
+        .description("Time spent loading a user by email for authentication")
+        .register(meterRegistry);
   }
 
   @Override
   @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByEmail(username)
+    User user = loadUserTimer.record(() -> userRepository.findByEmail(username))
         .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
 
     return UserDetailsImpl
@@ -29,8 +39,29 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
 
+  /**
+   * Called by the authentication provider after a successful login whose stored hash no longer matches
+   * the configured algorithm or strength; a single UPDATE, never issued when the hash is current.
+   */
+  @Override
+  @CacheEvict(value = "user", key = "#p0.id")
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    UserDetailsImpl userDetails = (UserDetailsImpl) user;
+    userRepository.updatePassword(userDetails.getId(), newPassword);
+
+    return UserDetailsImpl
+            .builder()
+            .id(userDetails.getId())
+            .username(userDetails.getUsername())
+            .lastName(userDetails.getLastName())
+            .firstName(userDetails.getFirstName())
+            .admin(userDetails.getAdmin())
+            .password(newPassword)
+            .build();
+  }
 }
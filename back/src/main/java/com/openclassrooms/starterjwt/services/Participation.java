@@ -0,0 +1,6 @@
+package com.openclassrooms.starterjwt.services;
+
+public enum Participation {
+    CONFIRMED,
+    WAITLISTED
+}
@@ -0,0 +1,231 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportDto;
+import com.openclassrooms.starterjwt.events.SessionEvent;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Creates or replaces many sessions at once. Every row is checked before anything is written, with
+ * one query per kind of referenced id, then sessions and PARTICIPATE rows go out as JDBC batches.
+ */
+@Service
+public class SessionImportService {
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SESSION = "INSERT INTO SESSIONS"
+            + " (name, description, date, teacher_id, capacity, participant_count, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SESSION = "UPDATE SESSIONS"
+            + " SET name = ?, description = ?, date = ?, teacher_id = ?, capacity = ?, participant_count = ?, updated_at = ?"
+            + " WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SessionRepository sessionRepository;
+
+    private final TeacherRepository teacherRepository;
+
+    private final UserRepository userRepository;
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final SessionService sessionService;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SessionImportService(JdbcTemplate jdbcTemplate,
+                                SessionRepository sessionRepository,
+                                TeacherRepository teacherRepository,
+                                UserRepository userRepository,
+                                WaitlistRepository waitlistRepository,
+                                SessionService sessionService,
+                                Validator validator,
+                                ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionRepository = sessionRepository;
+        this.teacherRepository = teacherRepository;
+        this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.sessionService = sessionService;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Sessions with an id replace the existing session and its participants, the others are created.
+     * Nothing is written if any row is invalid; the result then lists the errors of each rejected row.
+     */
+    @Transactional
+    public SessionImportDto importSessions(List<SessionDto> sessions) {
+        List<SessionImportDto.RowError> errors = this.validate(sessions);
+        if (!errors.isEmpty()) {
+            return new SessionImportDto(0, 0, Collections.emptyList(), errors);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<SessionDto> created = sessions.stream().filter(session -> session.getId() == null).collect(Collectors.toList());
+        List<SessionDto> updated = sessions.stream().filter(session -> session.getId() != null).collect(Collectors.toList());
+
+        List<Long> createdIds = this.insertSessions(created, now);
+        for (int i = 0; i < created.size(); i++) {
+            created.get(i).setId(createdIds.get(i));
+        }
+
+        List<Long> updatedIds = updated.stream().map(SessionDto::getId).collect(Collectors.toList());
+        this.jdbcTemplate.batchUpdate(UPDATE_SESSION, updated, BATCH_SIZE, (ps, session) -> {
+            this.bindSession(ps, session, now);
+            ps.setLong(8, session.getId());
+        });
+        this.jdbcTemplate.batchUpdate("DELETE FROM PARTICIPATE WHERE session_id = ?", updatedIds, BATCH_SIZE,
+                (ps, id) -> ps.setLong(1, id));
+
+        List<long[]> participants = new ArrayList<>();
+        for (SessionDto session : sessions) {
+            distinctUsers(session).forEach(userId -> participants.add(new long[]{session.getId(), userId}));
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", participants, BATCH_SIZE,
+                (ps, participant) -> {
+                    ps.setLong(1, participant[0]);
+                    ps.setLong(2, participant[1]);
+                });
+
+        Set<Long> reconciledIds = updatedIds.isEmpty()
+                ? Collections.emptySet() : new HashSet<>(this.waitlistRepository.findSessionIdsWithWaitlist(updatedIds));
+        reconciledIds.forEach(this.sessionService::reconcileWaitlist);
+
+        // one event for the whole import: one per row would overflow the queue of every subscriber at once
+        List<Long> sessionIds = sessions.stream().map(SessionDto::getId).collect(Collectors.toList());
+        this.eventPublisher.publishEvent(SessionEvent.changed(sessionIds));
+
+        return new SessionImportDto(created.size(), updated.size(), sessionIds, Collections.emptyList());
+    }
+
+    private List<SessionImportDto.RowError> validate(List<SessionDto> sessions) {
+        List<SessionDto> rows = sessions.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Set<Long> teacherIds = this.existing(rows.stream().map(SessionDto::getTeacher_id), this.teacherRepository::findExistingIds);
+        Set<Long> userIds = this.existing(rows.stream().flatMap(session -> distinctUsers(session).stream().boxed()),
+                this.userRepository::findExistingIds);
+        Set<Long> sessionIds = this.existing(rows.stream().map(SessionDto::getId), this.sessionRepository::findExistingIds);
+
+        List<SessionImportDto.RowError> errors = new ArrayList<>();
+        Set<Long> seenSessionIds = new HashSet<>();
+        for (int index = 0; index < sessions.size(); index++) {
+            SessionDto session = sessions.get(index);
+            if (session == null) {
+                errors.add(new SessionImportDto.RowError(index, Collections.singletonList("missing session")));
+                continue;
+            }
+
+            List<String> messages = new ArrayList<>();
+            for (ConstraintViolation<SessionDto> violation : this.validator.validate(session)) {
+                messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            if (session.getId() != null && !sessionIds.contains(session.getId())) {
+                messages.add("unknown session id " + session.getId());
+            }
+            if (session.getId() != null && !seenSessionIds.add(session.getId())) {
+                messages.add("duplicate session id " + session.getId());
+            }
+            if (session.getTeacher_id() != null && !teacherIds.contains(session.getTeacher_id())) {
+                messages.add("unknown teacher id " + session.getTeacher_id());
+            }
+            ParticipantIds users = distinctUsers(session);
+            List<Long> unknownUserIds = users.stream().filter(id -> !userIds.contains(id)).boxed().collect(Collectors.toList());
+            if (!unknownUserIds.isEmpty()) {
+                messages.add("unknown user ids " + unknownUserIds);
+            }
+            if (session.getCapacity() != null && users.size() > session.getCapacity()) {
+                messages.add("capacity " + session.getCapacity() + " is lower than the " + users.size() + " participants");
+            }
+
+            if (!messages.isEmpty()) {
+                errors.add(new SessionImportDto.RowError(index, messages));
+            }
+        }
+        return errors;
+    }
+
+    private List<Long> insertSessions(List<SessionDto> sessions, Timestamp now) {
+        return this.jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            List<Long> ids = new ArrayList<>(sessions.size());
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SESSION, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < sessions.size(); start += BATCH_SIZE) {
+                    for (SessionDto session : sessions.subList(start, Math.min(start + BATCH_SIZE, sessions.size()))) {
+                        this.bindSession(ps, session, now);
+                        ps.setTimestamp(8, now);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            if (ids.size() != sessions.size()) {
+                throw new IllegalStateException("Expected " + sessions.size() + " generated ids, got " + ids.size());
+            }
+            return ids;
+        });
+    }
+
+    /**
+     * Binds the first seven parameters shared by {@link #INSERT_SESSION} and {@link #UPDATE_SESSION}.
+     */
+    private void bindSession(PreparedStatement ps, SessionDto session, Timestamp now) throws SQLException {
+        ps.setString(1, session.getName());
+        ps.setString(2, session.getDescription());
+        ps.setTimestamp(3, new Timestamp(session.getDate().getTime()));
+        ps.setLong(4, session.getTeacher_id());
+        if (session.getCapacity() != null) {
+            ps.setInt(5, session.getCapacity());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+        ps.setInt(6, distinctUsers(session).size());
+        ps.setTimestamp(7, now);
+    }
+
+    private Set<Long> existing(Stream<Long> ids, Function<Collection<Long>, List<Long>> finder) {
+        Set<Long> requested = ids.filter(Objects::nonNull).collect(Collectors.toSet());
+        return requested.isEmpty() ? Collections.emptySet() : new HashSet<>(finder.apply(requested));
+    }
+
+    private static ParticipantIds distinctUsers(SessionDto session) {
+        return session.getUsers() != null ? session.getUsers() : ParticipantIds.empty();
+    }
+}
@@ -0,0 +1,258 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionEvent;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Every session as a ready-to-serve {@link SessionDto}, so that the session reads run no query. Built at
+ * startup, before the server accepts requests, then kept up to date from the {@link SessionEvent}s as their
+ * transaction commits: the sessions it changed are read again in one pass and their snapshots replaced, the deleted
+ * ones removed.
+ * A snapshot is never modified once stored, so a reader sees a session either wholly before or wholly after
+ * a change. The list of every session is copied once per transaction and swapped in with its version, so a list
+ * being served never changes under its reader and always matches the version it was served with.
+ * <p>
+ * Only the changes made through this instance are seen: enable {@code oc.app.sessionReadModel} on a single
+ * instance, or on instances that never write.
+ */
+@Service
+@Log4j2
+public class SessionReadModel implements SmartInitializingSingleton {
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    private final boolean enabled;
+
+    private final SessionService sessionService;
+
+    private final SessionMapper sessionMapper;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ConcurrentSkipListMap<Long, SessionDto> sessions = new ConcurrentSkipListMap<>();
+
+    /**
+     * Taken to apply changes and publish the snapshot, so that snapshots are published in the order of their versions.
+     */
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList(), "", 0, null);
+
+    public SessionReadModel(@Value("${oc.app.sessionReadModel}") boolean enabled,
+                            SessionService sessionService,
+                            SessionMapper sessionMapper,
+                            EntityManagerFactory entityManagerFactory,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        Gauge.builder("yoga.session.readmodel.size", this, readModel -> readModel.snapshot.sessions.size())
+                .description("Sessions held by the read model")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (this.enabled) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Reloads every session; meant for startup, while nothing else writes.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        this.sessions.clear();
+        this.sessionService.export(null, REBUILD_CHUNK_SIZE,
+                (chunk, participants) -> this.sessionMapper.toDto(chunk, participants)
+                        .forEach(sessionDto -> this.sessions.put(sessionDto.getId(), sessionDto)));
+        LocalDateTime lastModified = this.sessions.values().stream()
+                .map(SessionDto::getUpdatedAt)
+                .filter(updatedAt -> updatedAt != null)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+        synchronized (this.lock) {
+            this.snapshot = new Snapshot(new ArrayList<>(this.sessions.values()),
+                    Long.toString(System.currentTimeMillis(), 36), 0, lastModified);
+        }
+        log.info("Session read model built with {} sessions in {} ms",
+                this.snapshot.sessions.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public SessionDto findById(Long id) {
+        return this.sessions.get(id);
+    }
+
+    /**
+     * Every session as of the last change, with the version and date to serve it with.
+     */
+    public Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Collects the sessions a transaction changes, to apply them all at once after it commits, before its events
+     * are broadcast, so that a subscriber reading a session on receipt sees the change. Outside a transaction,
+     * applies the change right away.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void collect(SessionEvent event) {
+        if (!this.enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.apply(event.getChangedIds());
+            return;
+        }
+
+        // looked up among the synchronizations rather than bound as a resource: those are suspended with their transaction
+        PendingChanges pending = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(PendingChanges.class::isInstance)
+                .map(PendingChanges.class::cast)
+                .findFirst()
+                .orElse(null);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.sessionIds.addAll(event.getChangedIds());
+    }
+
+    /**
+     * Reads the changed sessions again, those missing being deleted, then publishes one snapshot. Changes are
+     * applied one at a time, each after its commit, so the last session stored is the latest.
+     */
+    private void apply(Collection<Long> sessionIds) {
+        synchronized (this.lock) {
+            Map<Long, SessionDto> loaded = this.load(sessionIds);
+            for (Long id : sessionIds) {
+                SessionDto sessionDto = loaded.get(id);
+                if (sessionDto != null) {
+                    this.sessions.put(id, sessionDto);
+                } else {
+                    this.sessions.remove(id);
+                }
+            }
+            this.snapshot = new Snapshot(new ArrayList<>(this.sessions.values()), this.snapshot.generation,
+                    this.snapshot.changes + 1, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Reads the sessions through an entity manager of its own, with their participants in one pass: the entity
+     * manager of the request that changed them may still hold them as they were before the statements that
+     * updated the counter and timestamp.
+     */
+    private Map<Long, SessionDto> load(Collection<Long> sessionIds) {
+        Map<Long, SessionDto> loaded = new HashMap<>();
+        List<Long> ids = new ArrayList<>(sessionIds);
+        EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            for (int start = 0; start < ids.size(); start += REBUILD_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(start, Math.min(start + REBUILD_CHUNK_SIZE, ids.size()));
+                List<Session> found = entityManager
+                        .createQuery("SELECT s FROM Session s LEFT JOIN FETCH s.teacher WHERE s.id IN (:ids)", Session.class)
+                        .setParameter("ids", chunk)
+                        .getResultList();
+                Map<Long, ParticipantIds> participants = this.sessionService.findParticipantIds(
+                        found.stream().map(Session::getId).collect(Collectors.toList()));
+                this.sessionMapper.toDto(found, participants).forEach(sessionDto -> loaded.put(sessionDto.getId(), sessionDto));
+                entityManager.clear();
+            }
+        } finally {
+            entityManager.close();
+        }
+        return loaded;
+    }
+
+    /**
+     * The list of every session with the version and date it is served with, published together.
+     */
+    public static final class Snapshot {
+        /**
+         * In id order, immutable: serving it copies nothing.
+         */
+        @Getter
+        private final List<SessionDto> sessions;
+
+        /**
+         * Set each time the model is built.
+         */
+        private final String generation;
+
+        /**
+         * Changes applied since the model was built.
+         */
+        private final long changes;
+
+        /**
+         * Changes whenever the content of the list does.
+         */
+        @Getter
+        private final String version;
+
+        @Getter
+        private final LocalDateTime lastModified;
+
+        private Snapshot(List<SessionDto> sessions, String generation, long changes, LocalDateTime lastModified) {
+            this.sessions = Collections.unmodifiableList(sessions);
+            this.generation = generation;
+            this.changes = changes;
+            this.version = generation + "." + changes + "." + sessions.size();
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * The sessions changed by one transaction, applied once it commits, ahead of the listeners broadcasting its events.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+        private final Set<Long> sessionIds = new LinkedHashSet<>();
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            SessionReadModel.this.apply(this.sessionIds);
+        }
+    }
+}
@@ -1,78 +1,296 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.events.SessionEvent;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.CollectionVersion;
+import com.openclassrooms.starterjwt.repository.SessionParticipant;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class SessionService {
+    private static final int PARTICIPANTS_BATCH_SIZE = 1000;
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Runs on a connection of its own, next to the one the export is streaming from. */
+    private final TransactionTemplate separateReadOnlyTransaction;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.separateReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.separateReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.separateReadOnlyTransaction.setReadOnly(true);
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        session.setParticipantCount(session.getUsers() != null ? session.getUsers().size() : 0);
+        Session created = this.sessionRepository.save(session);
+
+        this.eventPublisher.publishEvent(SessionEvent.saved(SessionEvent.Type.CREATED, created, created.getParticipantCount()));
+        return created;
     }
 
+    @Transactional
     public void delete(Long id) {
+        this.waitlistRepository.deleteBySessionId(id);
         this.sessionRepository.deleteById(id);
+
+        this.eventPublisher.publishEvent(SessionEvent.deleted(id));
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    public List<Session> findPage(Date from, Date to, Long teacherId, SessionCursor after, int limit) {
+        return this.sessionRepository.findPage(from, to, teacherId,
+                after != null ? after.getDate() : null,
+                after != null ? after.getId() : null,
+                PageRequest.of(0, limit));
+    }
+
+    /**
+     * Walks every session after {@code afterId} in id order and hands them over {@code chunkSize} at a time,
+     * with their participant ids. Each chunk is detached once consumed, so memory stays flat whatever the number
+     * of sessions. The participants are read in a transaction of their own: a streaming MySQL result set
+     * keeps any other statement off its connection until it is read to the end.
+     */
+    @Transactional(readOnly = true)
+    public void export(Long afterId, int chunkSize, BiConsumer<List<Session>, Map<Long, ParticipantIds>> chunkConsumer) {
+        try (Stream<Session> sessions = this.sessionRepository.streamAll(afterId)) {
+            List<Session> chunk = new ArrayList<>(chunkSize);
+            sessions.forEach(session -> {
+                chunk.add(session);
+                if (chunk.size() == chunkSize) {
+                    this.acceptChunk(chunk, chunkConsumer);
+                    chunk.clear();
+                    this.entityManager.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                this.acceptChunk(chunk, chunkConsumer);
+            }
+        }
+    }
+
+    private void acceptChunk(List<Session> chunk, BiConsumer<List<Session>, Map<Long, ParticipantIds>> chunkConsumer) {
+        List<Long> ids = new ArrayList<>(chunk.size());
+        chunk.forEach(session -> ids.add(session.getId()));
+        chunkConsumer.accept(chunk, this.separateReadOnlyTransaction.execute(status -> this.findParticipantIds(ids)));
+    }
+
+    public List<Session> findByParticipant(Long userId) {
+        return this.sessionRepository.findByParticipant(userId);
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Last modification of the session, participants included, read without loading the entity.
+     */
+    public LocalDateTime getUpdatedAt(Long id) {
+        return this.sessionRepository.findUpdatedAtById(id).orElse(null);
+    }
+
+    public CollectionVersion getCollectionVersion() {
+        return this.sessionRepository.findCollectionVersion();
+    }
+
+    public ParticipantIds findParticipantIds(Long sessionId) {
+        return this.findParticipantIds(Collections.singletonList(sessionId))
+                .getOrDefault(sessionId, ParticipantIds.empty());
+    }
+
+    /**
+     * Reads participant ids straight from PARTICIPATE, in batches of {@value #PARTICIPANTS_BATCH_SIZE} sessions,
+     * so that listing sessions never loads the participating users.
+     */
+    public Map<Long, ParticipantIds> findParticipantIds(Collection<Long> sessionIds) {
+        Map<Long, ParticipantIds.Builder> participants = new HashMap<>();
+        List<Long> ids = new ArrayList<>(sessionIds);
+        for (int start = 0; start < ids.size(); start += PARTICIPANTS_BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(start + PARTICIPANTS_BATCH_SIZE, ids.size()));
+            for (SessionParticipant participant : this.sessionRepository.findParticipants(batch)) {
+                participants.computeIfAbsent(participant.getSessionId(), id -> ParticipantIds.builder())
+                        .add(participant.getUserId());
+            }
+        }
+
+        Map<Long, ParticipantIds> built = new HashMap<>(participants.size() * 4 / 3 + 1);
+        participants.forEach((sessionId, builder) -> built.put(sessionId, builder.build()));
+        return built;
+    }
+
+    /**
+     * Replaces the session, participants included, then brings the seat counter and the waitlist
+     * in line with the new participants and capacity.
+     */
+    @Transactional
     public Session update(Long id, Session session) {
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session updated = this.sessionRepository.saveAndFlush(session);
+
+        this.sessionRepository.syncParticipantCount(id, LocalDateTime.now());
+        this.reconcileWaitlist(id);
+
+        this.eventPublisher.publishEvent(SessionEvent.saved(SessionEvent.Type.UPDATED, updated, this.getParticipantCount(id)));
+        return updated;
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
-        }
+    /**
+     * Drops waitlist entries of users who now participate, then hands any free seat to the next in line.
+     * Joins the caller's transaction, such as the one of an import that rewrote the participants.
+     */
+    @Transactional
+    public void reconcileWaitlist(Long id) {
+        this.waitlistRepository.removeParticipantsFromWaitlist(id);
+        this.fillFromWaitlist(id);
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
-            throw new BadRequestException();
+    /**
+     * Takes a seat for the user, or puts them on the waitlist once the session is full.
+     */
+    @Transactional
+    public Participation participate(Long id, Long userId) {
+        if (this.sessionRepository.reserveSeat(id, LocalDateTime.now()) == 0) {
+            // unknown or full: lock the row so that no seat is released while the user joins the waitlist
+            if (this.sessionRepository.lockById(id) == null) {
+                throw new NotFoundException();
+            }
+            if (this.sessionRepository.reserveSeat(id, LocalDateTime.now()) == 0) {
+                return this.joinWaitlist(id, userId);
+            }
         }
 
-        session.getUsers().add(user);
+        this.addParticipant(id, userId);
 
-        this.sessionRepository.save(session);
+        this.eventPublisher.publishEvent(SessionEvent.participation(
+                SessionEvent.Type.PARTICIPATED, id, userId, this.getParticipantCount(id)));
+        return Participation.CONFIRMED;
     }
 
+    /**
+     * Leaves the session, or its waitlist. A freed seat goes to the first user waiting for it.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        // SESSIONS before PARTICIPATE, the same lock order as participate
+        if (this.sessionRepository.lockById(id) == null) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+        if (this.sessionRepository.removeParticipant(id, userId) == 0) {
+            if (this.waitlistRepository.removeFromWaitlist(id, userId) == 0) {
+                throw new BadRequestException();
+            }
+            return;
+        }
+
+        this.sessionRepository.releaseSeat(id, LocalDateTime.now());
+        List<Long> promoted = this.fillFromWaitlist(id);
+
+        int participantCount = this.getParticipantCount(id);
+        this.eventPublisher.publishEvent(SessionEvent.participation(SessionEvent.Type.LEFT, id, userId, participantCount));
+        promoted.forEach(promotedId -> this.eventPublisher.publishEvent(SessionEvent.participation(
+                SessionEvent.Type.PARTICIPATED, id, promotedId, participantCount)));
+    }
+
+    /**
+     * Seats taken as seen by the current transaction.
+     */
+    int getParticipantCount(Long id) {
+        return this.sessionRepository.findParticipantCountById(id).orElse(0);
+    }
+
+    private Participation joinWaitlist(Long id, Long userId) {
+        if (this.sessionRepository.countParticipant(id, userId) > 0) {
             throw new BadRequestException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        try {
+            this.waitlistRepository.addToWaitlist(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw this.participationConflict(userId);
+        }
+        return Participation.WAITLISTED;
+    }
+
+    /**
+     * Returns the users who got a seat, in waitlist order.
+     */
+    private List<Long> fillFromWaitlist(Long id) {
+        List<Long> promoted = new ArrayList<>();
+        List<Long> next = this.waitlistRepository.findNextUserIds(id, PageRequest.of(0, 1));
+        while (!next.isEmpty() && this.sessionRepository.reserveSeat(id, LocalDateTime.now()) == 1) {
+            this.waitlistRepository.removeFromWaitlist(id, next.get(0));
+            this.addParticipant(id, next.get(0));
+            promoted.add(next.get(0));
+            next = this.waitlistRepository.findNextUserIds(id, PageRequest.of(0, 1));
+        }
+        return promoted;
+    }
+
+    private void addParticipant(Long id, Long userId) {
+        try {
+            this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw this.participationConflict(userId);
+        }
+    }
 
-        this.sessionRepository.save(session);
+    /**
+     * Explains a constraint violation on a session known to exist: either the user does not exist,
+     * or they are already there.
+     */
+    private RuntimeException participationConflict(Long userId) {
+        if (!this.userRepository.existsById(userId)) {
+            return new NotFoundException();
+        }
+        return new BadRequestException();
     }
 }
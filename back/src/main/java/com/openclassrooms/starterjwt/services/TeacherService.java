@@ -1,24 +1,44 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Caches {@link TeacherDto}s rather than entities: a cached value is shared by every request thread,
+ * and a managed entity belongs to the persistence context that loaded it.
+ */
 @Service
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
-    public TeacherService(TeacherRepository teacherRepository) {
+    private final TeacherMapper teacherMapper;
+
+    public TeacherService(TeacherRepository teacherRepository, TeacherMapper teacherMapper) {
         this.teacherRepository = teacherRepository;
+        this.teacherMapper = teacherMapper;
+    }
+
+    @Cacheable(value = "teachers", key = "'all'")
+    public List<TeacherDto> findAll() {
+        return Collections.unmodifiableList(this.teacherMapper.toDto(this.teacherRepository.findAll()));
     }
 
-    public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+    @Cacheable(value = "teacher", unless = "#result == null")
+    public TeacherDto findById(Long id) {
+        return this.teacherRepository.findById(id).map(this.teacherMapper::toDto).orElse(null);
     }
 
-    public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+    /**
+     * A reference to attach to a session being saved, for a teacher known to exist: runs no query.
+     */
+    public Teacher getReference(Long id) {
+        return this.teacherRepository.getById(id);
     }
 }
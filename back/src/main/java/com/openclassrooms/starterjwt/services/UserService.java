@@ -1,22 +1,53 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.TokenRevocationService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final TokenRevocationService tokenRevocationService;
+
+    private final UserMapper userMapper;
+
+    public UserService(UserRepository userRepository, TokenRevocationService tokenRevocationService, UserMapper userMapper) {
         this.userRepository = userRepository;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userMapper = userMapper;
     }
 
+    @CacheEvict("user")
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.tokenRevocationService.revokeUser(id);
+    }
+
+    /**
+     * The user without the password hash. The cache holds this copy, never the entity, which is attached to the
+     * persistence context that loaded it and would be shared by every thread reading the cache.
+     */
+    @Cacheable(value = "user", unless = "#result == null")
+    public UserDto findById(Long id) {
+        return this.userRepository.findById(id).map(this::toDtoWithoutPassword).orElse(null);
+    }
+
+    private UserDto toDtoWithoutPassword(User user) {
+        UserDto userDto = this.userMapper.toDto(user);
+        userDto.setPassword(null);
+        return userDto;
     }
 
-    public User findById(Long id) {
-        return this.userRepository.findById(id).orElse(null);
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
     }
 }
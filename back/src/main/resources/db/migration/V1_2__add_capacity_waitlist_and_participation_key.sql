@@ -0,0 +1,38 @@
+-- microsecond timestamps, so that two changes within the same second tell apart for conditional GET
+ALTER TABLE `TEACHERS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+ALTER TABLE `SESSIONS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+-- seats: no capacity means no limit; the counter is kept by the statements that add and remove participants
+ALTER TABLE `SESSIONS` ADD `capacity` INT;
+ALTER TABLE `SESSIONS` ADD `participant_count` INT NOT NULL DEFAULT 0;
+
+-- one row per participant: rows with a missing id and duplicates are dropped on the way
+CREATE TABLE `PARTICIPATE_KEYED` (
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+INSERT INTO `PARTICIPATE_KEYED` (`user_id`, `session_id`)
+  SELECT DISTINCT `user_id`, `session_id` FROM `PARTICIPATE` WHERE `user_id` IS NOT NULL AND `session_id` IS NOT NULL;
+DROP TABLE `PARTICIPATE`;
+ALTER TABLE `PARTICIPATE_KEYED` RENAME TO `PARTICIPATE`;
+
+-- "which sessions is this user in"; also serves the foreign key on user_id
+CREATE INDEX `IDX_PARTICIPATE_USER_SESSION` ON `PARTICIPATE` (`user_id`, `session_id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+
+-- keeps updated_at as it was: counting the existing participants is not a change to the session
+UPDATE `SESSIONS` SET
+  `participant_count` = (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = `SESSIONS`.`id`),
+  `updated_at` = `updated_at`;
+
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (`session_id`, `user_id`)
+);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
@@ -0,0 +1,11 @@
+-- findByEmail and existsByEmail on every login and sign-up; also enforces what User declares
+CREATE UNIQUE INDEX `UK_USERS_EMAIL` ON `USERS` (`email`);
+
+-- session listing and keyset pages, ordered by (date, id)
+CREATE INDEX `IDX_SESSIONS_DATE_ID` ON `SESSIONS` (`date`, `id`);
+
+-- the same pages filtered by teacher; also serves the foreign key on teacher_id
+CREATE INDEX `IDX_SESSIONS_TEACHER_DATE_ID` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+
+-- next user in line for a freed seat, in arrival order
+CREATE INDEX `IDX_WAITLIST_SESSION_ID` ON `WAITLIST` (`session_id`, `id`);
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsoDateModuleTest {
+    private final ObjectMapper reference = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new IsoDateModule())
+            .build();
+
+    @Test
+    public void replacesTheDefaultSerializers() throws Exception {
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(LocalDateTime.class).getClass()
+                .getEnclosingClass()).isEqualTo(IsoDateModule.class);
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(Date.class).getClass()
+                .getEnclosingClass()).isEqualTo(IsoDateModule.class);
+    }
+
+    @Test
+    public void writesWhatJacksonWrites() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long millis = random.nextLong() % 253402300800000L;
+            LocalDateTime localDateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    i % 3 == 0 ? 0 : i % 3 == 1 ? (int) Math.floorMod(millis, 1000L) * 1_000_000 : random.nextInt(1_000_000_000),
+                    ZoneOffset.UTC);
+            assertSameJson(localDateTime);
+            assertSameJson(new Date(millis));
+            assertSameJson(new Timestamp(millis));
+        }
+
+        List<Object> edges = Arrays.asList(
+                LocalDateTime.of(0, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_999),
+                LocalDateTime.of(10000, 1, 1, 0, 0), LocalDateTime.of(-1, 1, 1, 0, 0, 0, 100),
+                new Date(0), new Date(-1), new Date(253402300800000L), new Date(-62167219200001L),
+                java.sql.Date.valueOf("2024-01-01"), java.sql.Time.valueOf("10:00:00"));
+        for (Object edge : edges) {
+            assertSameJson(edge);
+        }
+    }
+
+    @Test
+    public void followsTheConfiguredFormat() throws Exception {
+        Date date = new Date(1704103200123L);
+        LocalDateTime localDateTime = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+        ObjectMapper timestamps = this.objectMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        assertThat(timestamps.writeValueAsString(date)).isEqualTo("1704103200123");
+        assertThat(timestamps.writeValueAsString(localDateTime)).isEqualTo("[2024,1,1,10,0]");
+
+        ObjectMapper paris = this.objectMapper.copy().setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+        assertThat(paris.writeValueAsString(date)).isEqualTo("\"2024-01-01T11:00:00.123+01:00\"");
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertThat(this.objectMapper.writeValueAsString(value)).isEqualTo(this.reference.writeValueAsString(value));
+    }
+}
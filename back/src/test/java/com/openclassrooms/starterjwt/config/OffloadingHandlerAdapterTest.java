@@ -0,0 +1,203 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holds more requests than Tomcat has threads, and checks that what depends on where the controller runs,
+ * error pages, conditional GET, the authenticated user and asynchronous bodies, still works.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=2",
+        "server.tomcat.threads.min-spare=2",
+        "oc.app.requestThreads=" + OffloadingHandlerAdapterTest.REQUEST_THREADS,
+        "oc.app.requestQueueDepth=0",
+})
+@Import(OffloadingHandlerAdapterTest.HoldController.class)
+public class OffloadingHandlerAdapterTest {
+    static final int REQUEST_THREADS = 10;
+
+    private static CountDownLatch arrived;
+
+    private static CountDownLatch release;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String token;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        this.userId = this.userRepository.save(new User("offloaded@studio.com", "Yogi", "Yogi", this.passwordEncoder.encode("password"), false)).getId();
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("email", "offloaded@studio.com");
+        credentials.put("password", "password");
+        this.token = (String) this.restTemplate.postForObject("/api/auth/login", credentials, Map.class).get("token");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void holdsAsManyRequestsAsThePoolHasThreads() throws Exception {
+        arrived = new CountDownLatch(REQUEST_THREADS);
+        release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(REQUEST_THREADS);
+        try {
+            List<CompletableFuture<Integer>> held = new ArrayList<>();
+            for (int i = 0; i < REQUEST_THREADS; i++) {
+                held.add(CompletableFuture.supplyAsync(() -> get("/api/hold", this.token).status, clients));
+            }
+
+            // five times as many requests in the controller as there are Tomcat threads
+            assertThat(arrived.await(10, TimeUnit.SECONDS)).isTrue();
+            Response refused = get("/api/session", this.token);
+            release.countDown();
+
+            assertThat(refused.status).isEqualTo(503);
+            for (CompletableFuture<Integer> status : held) {
+                assertThat(status.get(10, TimeUnit.SECONDS)).isEqualTo(200);
+            }
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void responsesAreTheSameAsOnTheTomcatThread() {
+        assertThat(get("/api/session", null).status).isEqualTo(401);
+
+        Response badRequest = get("/api/session/page?cursor=garbage", this.token);
+        assertThat(badRequest.status).isEqualTo(400);
+
+        assertThat(get("/api/session/0", this.token).status).isEqualTo(404);
+
+        Response sessions = get("/api/session", this.token);
+        assertThat(sessions.status).isEqualTo(200);
+        assertThat(sessions.firstLine).isEqualTo("[]");
+        assertThat(get("/api/session", this.token, sessions.etag).status).isEqualTo(304);
+
+        // compares the user to delete with the one in the security context
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.token);
+        assertThat(this.restTemplate.exchange("/api/user/" + this.userId, HttpMethod.DELETE, new HttpEntity<>(headers), Void.class)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    public void asynchronousResponsesStillStream() {
+        Response export = get("/api/session/export", this.token);
+        assertThat(export.status).isEqualTo(200);
+        assertThat(export.firstLine).isNull();
+
+        Response events = get("/api/session/events", this.token);
+        assertThat(events.status).isEqualTo(200);
+        assertThat(events.firstLine).isEqualTo(":subscribed");
+    }
+
+    private Response get(String path, String token) {
+        return get(path, token, null);
+    }
+
+    private Response get(String path, String token, String ifNoneMatch) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + path).openConnection();
+            if (token != null) {
+                connection.setRequestProperty(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            }
+            if (ifNoneMatch != null) {
+                connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+            }
+            connection.setReadTimeout(10_000);
+            try {
+                int status = connection.getResponseCode();
+                String etag = connection.getHeaderField(HttpHeaders.ETAG);
+                InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                if (body == null) {
+                    return new Response(status, null, etag);
+                }
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                    return new Response(status, reader.readLine(), etag);
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Response {
+        private final int status;
+
+        private final String firstLine;
+
+        private final String etag;
+
+        Response(int status, String firstLine, String etag) {
+            this.status = status;
+            this.firstLine = firstLine;
+            this.etag = etag;
+        }
+    }
+
+    @RestController
+    static class HoldController {
+        @GetMapping("/api/hold")
+        public String hold() throws InterruptedException {
+            arrived.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "released";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("prod")
+@WithMockUser
+public class ProductionProfileTest {
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void poolIsSizedFromTheCoreCount() {
+        int expected = Runtime.getRuntime().availableProcessors() * 2 + 1;
+
+        HikariDataSource hikari = (HikariDataSource) this.dataSource;
+        assertThat(hikari.getMaximumPoolSize()).isEqualTo(expected);
+        assertThat(hikari.getMinimumIdle()).isEqualTo(expected);
+    }
+
+    @Test
+    public void sessionsAreServedWithoutOpenInView() throws Exception {
+        assertThat(this.applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+
+        this.mockMvc.perform(get("/api/session")).andExpect(status().isOk());
+        this.mockMvc.perform(get("/api/teacher")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,130 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser
+public class ConditionalRequestTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    private Session session;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Teacher teacher = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+        this.user = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.session = this.sessionRepository.save(Session.builder()
+                .name("Morning flow")
+                .date(new Date())
+                .description("Vinyasa")
+                .teacher(teacher)
+                .users(Collections.emptyList())
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void unchangedSessionIsNotReloaded() throws Exception {
+        String url = "/api/session/" + this.session.getId();
+        String etag = etagOf(url);
+
+        this.statistics.clear();
+        this.mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // the updated_at lookup only
+        assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        this.mockMvc.perform(post(url + "/participate/" + this.user.getId())).andExpect(status().isOk());
+
+        this.mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void sessionListChangesVersionOnDelete() throws Exception {
+        String etag = etagOf("/api/session");
+
+        this.mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        this.mockMvc.perform(delete("/api/session/" + this.session.getId())).andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void unchangedTeacherListCostsNoQuery() throws Exception {
+        String etag = etagOf("/api/teacher");
+
+        this.statistics.clear();
+        this.mockMvc.perform(get("/api/teacher").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    private String etagOf(String url) throws Exception {
+        String etag = this.mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
@@ -0,0 +1,219 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class SessionControllerConcurrencyTest {
+    private static final int CAPACITY = 10;
+    private static final int CONTENDERS = 200;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    private HttpHeaders headers;
+
+    @BeforeEach
+    public void setUp() {
+        String password = this.passwordEncoder.encode("password");
+        for (int i = 0; i < CONTENDERS; i++) {
+            this.userIds.add(this.userRepository.save(
+                    new User("yogi" + i + "@studio.com", "Yogi", "Yogi", password, false)).getId());
+        }
+
+        Map<String, String> credentials = new ConcurrentHashMap<>();
+        credentials.put("email", "yogi0@studio.com");
+        credentials.put("password", "password");
+        Map<?, ?> login = this.restTemplate.postForObject("/api/auth/login", credentials, Map.class);
+
+        this.headers = new HttpHeaders();
+        this.headers.setBearerAuth((String) login.get("token"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM WAITLIST");
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentSignUpsNeverOversell() throws Exception {
+        Long sessionId = createSession(CAPACITY);
+
+        Map<HttpStatus, AtomicInteger> statuses = fireConcurrently(this.userIds, userId ->
+                exchange(HttpMethod.POST, sessionId, userId));
+
+        assertThat(count(statuses, HttpStatus.OK)).isEqualTo(CAPACITY);
+        assertThat(count(statuses, HttpStatus.ACCEPTED)).isEqualTo(CONTENDERS - CAPACITY);
+        assertSeats(sessionId, CAPACITY, CONTENDERS - CAPACITY);
+    }
+
+    @Test
+    public void concurrentLeavesPromoteTheWaitlist() throws Exception {
+        Long sessionId = createSession(CAPACITY);
+        fireConcurrently(this.userIds, userId -> exchange(HttpMethod.POST, sessionId, userId));
+        List<Long> participants = this.jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, sessionId);
+
+        Map<HttpStatus, AtomicInteger> statuses = fireConcurrently(participants, userId ->
+                exchange(HttpMethod.DELETE, sessionId, userId));
+
+        assertThat(count(statuses, HttpStatus.OK)).isEqualTo(CAPACITY);
+        assertSeats(sessionId, CAPACITY, CONTENDERS - 2 * CAPACITY);
+        assertThat(this.jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, sessionId))
+                .doesNotContainAnyElementsOf(participants);
+    }
+
+    @Test
+    public void concurrentDuplicateSignUpsTakeOneSeat() throws Exception {
+        Long sessionId = createSession(null);
+        Long userId = this.userIds.get(0);
+
+        Map<HttpStatus, AtomicInteger> statuses = fireConcurrently(
+                Collections.nCopies(THREADS, userId), id -> exchange(HttpMethod.POST, sessionId, id));
+
+        assertThat(count(statuses, HttpStatus.OK)).isEqualTo(1);
+        assertThat(count(statuses, HttpStatus.BAD_REQUEST)).isEqualTo(THREADS - 1);
+        assertSeats(sessionId, 1, 0);
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void sessionsAreNeverSavedWithMoreParticipantsThanSeats() {
+        Long teacherId = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye")).getId();
+        Map<String, Object> session = new HashMap<>();
+        session.put("name", "Vinyasa");
+        session.put("description", "Popular class");
+        session.put("date", new Date());
+        session.put("teacher_id", teacherId);
+        session.put("capacity", 2);
+        session.put("users", this.userIds.subList(0, 3));
+
+        ResponseEntity<Map> created = this.restTemplate.exchange("/api/session", HttpMethod.POST,
+                new HttpEntity<>(session, this.headers), Map.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(created.getBody().get("message")).isEqualTo("Error: capacity 2 is lower than the 3 participants");
+        assertThat(this.sessionRepository.count()).isZero();
+
+        Long sessionId = createSession(2);
+        ResponseEntity<Map> updated = this.restTemplate.exchange("/api/session/" + sessionId, HttpMethod.PUT,
+                new HttpEntity<>(session, this.headers), Map.class);
+        assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertSeats(sessionId, 0, 0);
+
+        session.put("capacity", 3);
+        assertThat(this.restTemplate.exchange("/api/session/" + sessionId, HttpMethod.PUT,
+                new HttpEntity<>(session, this.headers), Map.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertSeats(sessionId, 3, 0);
+    }
+
+    private Long createSession(Integer capacity) {
+        return this.sessionRepository.save(Session.builder()
+                .name("Vinyasa")
+                .description("Popular class")
+                .date(new Date())
+                .capacity(capacity)
+                .users(new ArrayList<>())
+                .build()).getId();
+    }
+
+    private HttpStatus exchange(HttpMethod method, Long sessionId, Long userId) {
+        return this.restTemplate.exchange("/api/session/" + sessionId + "/participate/" + userId,
+                method, new HttpEntity<>(this.headers), Void.class).getStatusCode();
+    }
+
+    private Map<HttpStatus, AtomicInteger> fireConcurrently(List<Long> userIds, Request request) throws Exception {
+        Map<HttpStatus, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long userId : userIds) {
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    statuses.computeIfAbsent(request.send(userId), status -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return statuses;
+    }
+
+    private int count(Map<HttpStatus, AtomicInteger> statuses, HttpStatus status) {
+        AtomicInteger count = statuses.get(status);
+        return count != null ? count.get() : 0;
+    }
+
+    private void assertSeats(Long sessionId, int participants, int waiting) {
+        assertThat(this.jdbcTemplate.queryForObject(
+                "SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, sessionId)).isEqualTo(participants);
+        assertThat(this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId)).isEqualTo(participants);
+        assertThat(this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM WAITLIST WHERE session_id = ?", Integer.class, sessionId)).isEqualTo(waiting);
+    }
+
+    private interface Request {
+        HttpStatus send(Long userId);
+    }
+}
@@ -0,0 +1,157 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class SessionControllerExportTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Session> sessions = new ArrayList<>();
+
+    private User alice;
+
+    private User bob;
+
+    @BeforeEach
+    public void setUp() {
+        Teacher teacher = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+        this.alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.bob = this.userRepository.save(new User("bob@studio.com", "Bob", "Bob", "password", false));
+
+        for (int i = 0; i < 3; i++) {
+            this.sessions.add(this.sessionRepository.save(Session.builder()
+                    .name("Session " + i)
+                    .date(new Date())
+                    .description("Export")
+                    .teacher(teacher)
+                    .users(i == 0 ? Arrays.asList(this.alice, this.bob) : Collections.emptyList())
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void exportsOneLinePerSessionWithParticipants() throws Exception {
+        MockHttpServletResponse response = export(get("/api/session/export"));
+
+        assertThat(response.getContentType()).isEqualTo("application/x-ndjson");
+        List<JsonNode> lines = lines(response.getContentAsByteArray());
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0).get("id").asLong()).isEqualTo(this.sessions.get(0).getId());
+        assertThat(lines.get(0).get("teacher_id").asLong()).isEqualTo(this.sessions.get(0).getTeacher().getId());
+        assertThat(lines.get(0).get("users")).extracting(JsonNode::asLong)
+                .containsExactlyInAnyOrder(this.alice.getId(), this.bob.getId());
+        assertThat(lines.get(1).get("users")).isEmpty();
+    }
+
+    @Test
+    public void resumesAfterTheLastReceivedId() throws Exception {
+        MockHttpServletResponse response = export(get("/api/session/export")
+                .param("afterId", this.sessions.get(0).getId().toString()));
+
+        assertThat(lines(response.getContentAsByteArray())).extracting(line -> line.get("id").asLong())
+                .containsExactly(this.sessions.get(1).getId(), this.sessions.get(2).getId());
+    }
+
+    @Test
+    public void compressesWhenTheClientAcceptsGzip() throws Exception {
+        MockHttpServletResponse response = export(get("/api/session/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        byte[] body = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())));
+        assertThat(lines(body)).hasSize(3);
+    }
+
+    @Test
+    public void compressesOnlyWhenGzipHasANonZeroQuality() throws Exception {
+        MockHttpServletResponse response = export(get("/api/session/export")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(lines(response.getContentAsByteArray())).hasSize(3);
+
+        assertThat(SessionController.acceptsGzip("deflate, GZIP ; q=0.5")).isTrue();
+        assertThat(SessionController.acceptsGzip("br, *;q=0.1")).isTrue();
+        assertThat(SessionController.acceptsGzip("gzip;q=0.000, *")).isFalse();
+        assertThat(SessionController.acceptsGzip("x-gzip;q=1, identity")).isTrue();
+        assertThat(SessionController.acceptsGzip("identity")).isFalse();
+        assertThat(SessionController.acceptsGzip(null)).isFalse();
+    }
+
+    private MockHttpServletResponse export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = this.mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+        // oc.app.exportTimeoutMs rather than the default asynchronous request timeout
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(3600000L);
+        return this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private List<JsonNode> lines(byte[] body) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : new String(body, StandardCharsets.UTF_8).split("\n")) {
+            lines.add(this.objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
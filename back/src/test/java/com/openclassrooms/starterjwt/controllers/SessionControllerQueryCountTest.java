@@ -0,0 +1,137 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@WithMockUser
+public class SessionControllerQueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    private User alice;
+
+    private User bob;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.bob = this.userRepository.save(new User("bob@studio.com", "Bob", "Bob", "password", false));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void listingSessionsCostsAConstantNumberOfStatements() throws Exception {
+        createSessions(3);
+        long fewSessions = countStatementsOfFindAll();
+
+        createSessions(30);
+        long manySessions = countStatementsOfFindAll();
+
+        assertThat(manySessions).isEqualTo(fewSessions);
+        // the collection version for conditional GET, the sessions with their teacher, their participants
+        assertThat(manySessions).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void listingSessionsReturnsParticipantIds() throws Exception {
+        createSessions(1);
+
+        this.mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].users", containsInAnyOrder(
+                        this.alice.getId().intValue(), this.bob.getId().intValue())));
+    }
+
+    @Test
+    public void savingASessionResolvesTheTeacherAndEveryParticipantInTwoQueries() throws Exception {
+        Long sessionId = createSessions(1);
+        // ids no test ever reaches, so that they stay unknown whatever the sequences are at
+        String body = "{\"name\":\"Morning flow\",\"date\":\"2024-01-01T10:00:00.000+00:00\",\"description\":\"Vinyasa\","
+                + "\"teacher_id\":1000000001,\"users\":[1000000003," + this.alice.getId() + ",1000000002," + this.bob.getId() + "]}";
+        String message = "Error: unknown teacher id 1000000001, unknown user ids [1000000002, 1000000003]";
+
+        this.statistics.clear();
+        this.mockMvc.perform(post("/api/session").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(message));
+        assertThat(this.statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+
+        this.statistics.clear();
+        this.mockMvc.perform(put("/api/session/" + sessionId).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(message));
+        assertThat(this.statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    private long countStatementsOfFindAll() throws Exception {
+        this.statistics.clear();
+        this.mockMvc.perform(get("/api/session")).andExpect(status().isOk());
+        return this.statistics.getPrepareStatementCount();
+    }
+
+    private Long createSessions(int count) {
+        Long lastId = null;
+        for (int i = 0; i < count; i++) {
+            // one teacher per session so that an eager to-one would show up as N+1 as well
+            Teacher teacher = this.teacherRepository.save(Teacher.builder().firstName("Margot").lastName("Delahaye").build());
+            lastId = this.sessionRepository.save(Session.builder()
+                    .name("Session " + i)
+                    .description("Description")
+                    .date(new Date())
+                    .teacher(teacher)
+                    .users(Arrays.asList(this.alice, this.bob))
+                    .build()).getId();
+        }
+        return lastId;
+    }
+}
@@ -0,0 +1,162 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.events.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Holds many more subscribers than there are request threads, then measures how long one change
+ * takes to reach all of them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "server.tomcat.threads.max=8")
+public class SessionEventsTest {
+    private static final int SUBSCRIBERS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionEventBroadcaster sessionEventBroadcaster;
+
+    private final List<HttpURLConnection> connections = new ArrayList<>();
+
+    private String token;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        this.userId = this.userRepository.save(
+                new User("listener@studio.com", "Yogi", "Yogi", this.passwordEncoder.encode("password"), false)).getId();
+
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("email", "listener@studio.com");
+        credentials.put("password", "password");
+        this.token = (String) this.restTemplate.postForObject("/api/auth/login", credentials, Map.class).get("token");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        synchronized (this.connections) {
+            this.connections.forEach(HttpURLConnection::disconnect);
+        }
+        this.sessionRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void participationReachesEverySubscriber() throws Exception {
+        Long sessionId = this.sessionRepository.save(Session.builder()
+                .name("Vinyasa").description("Flow").date(new Date()).capacity(10).build()).getId();
+
+        CountDownLatch received = new CountDownLatch(SUBSCRIBERS);
+        AtomicReferenceArray<String> data = new AtomicReferenceArray<>(SUBSCRIBERS);
+        long[] receivedAt = new long[SUBSCRIBERS];
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            int subscriber = i;
+            Thread reader = new Thread(null, () -> {
+                String line = this.readEvent("PARTICIPATED");
+                receivedAt[subscriber] = System.nanoTime();
+                data.set(subscriber, line);
+                received.countDown();
+            }, "subscriber-" + i, 128 * 1024);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (this.sessionEventBroadcaster.getSubscriberCount() < SUBSCRIBERS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(this.sessionEventBroadcaster.getSubscriberCount()).isEqualTo(SUBSCRIBERS);
+
+        // every subscriber is held while only 8 request threads exist, yet the next request is served
+        long sentAt = System.nanoTime();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(this.token);
+        assertThat(this.restTemplate.exchange("/api/session/" + sessionId + "/participate/" + this.userId,
+                HttpMethod.POST, new HttpEntity<>(headers), Void.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(received.await(30, TimeUnit.SECONDS)).isTrue();
+
+        long[] latenciesMs = Arrays.stream(receivedAt).map(at -> TimeUnit.NANOSECONDS.toMillis(at - sentAt)).sorted().toArray();
+        assertThat(latenciesMs[SUBSCRIBERS - 1]).isLessThan(10_000);
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            assertThat(data.get(i))
+                    .contains("\"type\":\"PARTICIPATED\"")
+                    .contains("\"sessionId\":" + sessionId)
+                    .contains("\"participantCount\":1")
+                    .contains("\"userId\":" + this.userId)
+                    .doesNotContain("fields");
+        }
+    }
+
+    /**
+     * Subscribes and returns the data of the first event with that name.
+     */
+    private String readEvent(String name) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + "/api/session/events").openConnection();
+            connection.setRequestProperty(HttpHeaders.AUTHORIZATION, "Bearer " + this.token);
+            connection.setReadTimeout(60_000);
+            synchronized (this.connections) {
+                this.connections.add(connection);
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                boolean named = false;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (named && line.startsWith("data:")) {
+                        return line.substring("data:".length());
+                    }
+                    named = line.equals("event:" + name);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
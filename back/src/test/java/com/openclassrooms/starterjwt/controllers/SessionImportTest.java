@@ -0,0 +1,167 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ParticipantIds;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.events.SessionEvent;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@RecordApplicationEvents
+public class SessionImportTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Teacher teacher;
+
+    private User alice;
+
+    private User bob;
+
+    @BeforeEach
+    public void setUp() {
+        this.teacher = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+        this.alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.bob = this.userRepository.save(new User("bob@studio.com", "Bob", "Bob", "password", false));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void importsThousandsOfSessionsWithTheirParticipants() throws Exception {
+        List<SessionDto> sessions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            sessions.add(session(null, "Session " + i, Arrays.asList(this.alice.getId(), this.bob.getId(), this.alice.getId())));
+        }
+
+        JsonNode result = importSessions(sessions, status().isOk());
+
+        assertThat(result.get("created").asInt()).isEqualTo(5000);
+        assertThat(result.get("ids")).hasSize(5000);
+        assertThat(this.sessionRepository.count()).isEqualTo(5000);
+
+        Long last = result.get("ids").get(4999).asLong();
+        assertThat(this.sessionService.getById(last).getName()).isEqualTo("Session 4999");
+        assertThat(this.sessionService.getById(last).getParticipantCount()).isEqualTo(2);
+        assertThat(this.sessionService.findParticipantIds(last).toList()).containsExactlyInAnyOrder(this.alice.getId(), this.bob.getId());
+
+        // a single event for the whole import, however many rows
+        List<SessionEvent> events = this.applicationEvents.stream(SessionEvent.class).collect(Collectors.toList());
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getType()).isEqualTo(SessionEvent.Type.CHANGED);
+        assertThat(events.get(0).getSessionCount()).isEqualTo(5000);
+        assertThat(events.get(0).getSessionIds()).hasSize(5000).contains(last);
+    }
+
+    @Test
+    public void replacesExistingSessionsAndTheirParticipants() throws Exception {
+        Long id = importSessions(Collections.singletonList(session(null, "Before", Collections.singletonList(this.alice.getId()))),
+                status().isOk()).get("ids").get(0).asLong();
+
+        JsonNode result = importSessions(Arrays.asList(
+                session(id, "After", Collections.singletonList(this.bob.getId())),
+                session(null, "New", Collections.emptyList())), status().isOk());
+
+        assertThat(result.get("created").asInt()).isEqualTo(1);
+        assertThat(result.get("updated").asInt()).isEqualTo(1);
+        assertThat(result.get("ids").get(0).asLong()).isEqualTo(id);
+        assertThat(this.sessionService.getById(id).getName()).isEqualTo("After");
+        assertThat(this.sessionService.findParticipantIds(id).toList()).containsExactly(this.bob.getId());
+    }
+
+    @Test
+    public void reportsEveryInvalidRowAndWritesNothing() throws Exception {
+        SessionDto full = session(null, "Full", Arrays.asList(this.alice.getId(), this.bob.getId()));
+        full.setCapacity(1);
+        SessionDto unknown = session(404L, "", Collections.singletonList(-1L));
+        unknown.setTeacher_id(-1L);
+
+        JsonNode result = importSessions(Arrays.asList(session(null, "Valid", Collections.emptyList()), full, unknown),
+                status().isBadRequest());
+
+        assertThat(result.get("errors")).hasSize(2);
+        assertThat(result.get("errors").get(0).get("index").asInt()).isEqualTo(1);
+        assertThat(result.get("errors").get(0).get("messages").get(0).asText()).isEqualTo("capacity 1 is lower than the 2 participants");
+        assertThat(result.get("errors").get(1).get("index").asInt()).isEqualTo(2);
+        assertThat(result.get("errors").get(1).get("messages")).extracting(JsonNode::asText).containsExactlyInAnyOrder(
+                "name: must not be blank",
+                "unknown session id 404",
+                "unknown teacher id -1",
+                "unknown user ids [-1]");
+        assertThat(this.sessionRepository.count()).isZero();
+    }
+
+    private SessionDto session(Long id, String name, List<Long> users) {
+        SessionDto session = new SessionDto();
+        session.setId(id);
+        session.setName(name);
+        session.setDate(new Date());
+        session.setDescription("Imported");
+        session.setTeacher_id(this.teacher.getId());
+        session.setUsers(users != null ? ParticipantIds.of(users) : null);
+        return session;
+    }
+
+    private JsonNode importSessions(List<SessionDto> sessions, ResultMatcher expectedStatus) throws Exception {
+        String response = this.mockMvc.perform(post("/api/session/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsString(sessions)))
+                .andExpect(expectedStatus)
+                .andReturn().getResponse().getContentAsString();
+        return this.objectMapper.readTree(response);
+    }
+}
@@ -0,0 +1,202 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionReadModel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "oc.app.sessionReadModel=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+public class SessionReadModelTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SessionReadModel sessionReadModel;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+
+    private Teacher teacher;
+
+    private Session session;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.teacher = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+        this.user = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.session = this.sessionRepository.save(Session.builder()
+                .name("Morning flow")
+                .date(new Date())
+                .description("Vinyasa")
+                .teacher(this.teacher)
+                .users(Collections.emptyList())
+                .build());
+        // written behind the model's back, as before a restart
+        this.sessionReadModel.rebuild();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void readsRunNoQuery() throws Exception {
+        this.statistics.clear();
+
+        this.mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Morning flow"))
+                .andExpect(jsonPath("$[0].teacher_id").value(this.teacher.getId()))
+                .andExpect(jsonPath("$[0].users").isEmpty());
+        this.mockMvc.perform(get("/api/session/" + this.session.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Vinyasa"));
+        this.mockMvc.perform(get("/api/session/0")).andExpect(status().isNotFound());
+        this.mockMvc.perform(get("/api/session/abc")).andExpect(status().isBadRequest());
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void followsEveryWrite() throws Exception {
+        String created = this.mockMvc.perform(post("/api/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Evening yin\",\"date\":\"2030-01-01T18:00:00.000+00:00\","
+                                + "\"teacher_id\":" + this.teacher.getId() + ",\"description\":\"Slow\",\"capacity\":10}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String url = "/api/session/" + this.objectMapper.readTree(created).get("id").asLong();
+        String listEtag = etagOf("/api/session");
+        SessionReadModel.Snapshot before = this.sessionReadModel.getSnapshot();
+
+        this.mockMvc.perform(post(url + "/participate/" + this.user.getId())).andExpect(status().isOk());
+
+        // a list already being served is left as it was, under the version it was served with
+        assertThat(before.getSessions()).hasSize(2);
+        assertThat(before.getSessions().get(1).getUsers().isEmpty()).isTrue();
+        assertThat(this.sessionReadModel.getSnapshot().getVersion()).isNotEqualTo(before.getVersion());
+
+        this.statistics.clear();
+        this.mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Evening yin"))
+                .andExpect(jsonPath("$.users", contains(this.user.getId().intValue())))
+                .andExpect(jsonPath("$.participantCount").value(1));
+        this.mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+
+        this.mockMvc.perform(delete(url + "/participate/" + this.user.getId())).andExpect(status().isOk());
+        this.mockMvc.perform(put(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Evening yin nidra\",\"date\":\"2030-01-01T18:00:00.000+00:00\","
+                                + "\"teacher_id\":" + this.teacher.getId() + ",\"description\":\"Slower\",\"capacity\":10}"))
+                .andExpect(status().isOk());
+
+        JsonNode updated = this.objectMapper.readTree(this.mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(updated.get("name").asText()).isEqualTo("Evening yin nidra");
+        assertThat(updated.get("users")).isEmpty();
+        assertThat(updated.get("participantCount").asInt()).isZero();
+
+        this.mockMvc.perform(delete(url)).andExpect(status().isOk());
+        this.mockMvc.perform(get(url)).andExpect(status().isNotFound());
+        this.mockMvc.perform(get("/api/session"))
+                .andExpect(jsonPath("$[*].name", contains("Morning flow")));
+    }
+
+    @Test
+    public void appliesAnImportInOnePass() throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rows.add("{\"name\":\"Imported " + i + "\",\"date\":\"2030-01-01T18:00:00.000+00:00\",\"teacher_id\":"
+                    + this.teacher.getId() + ",\"description\":\"Bulk\",\"users\":[" + this.user.getId() + "]}");
+        }
+        SessionReadModel.Snapshot before = this.sessionReadModel.getSnapshot();
+
+        this.statistics.clear();
+        this.mockMvc.perform(post("/api/session/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", rows) + "]"))
+                .andExpect(status().isOk());
+
+        // one query for the sessions and one per batch of participants, not two per row
+        assertThat(this.statistics.getPrepareStatementCount()).isLessThan(20);
+        SessionReadModel.Snapshot after = this.sessionReadModel.getSnapshot();
+        assertThat(after.getSessions()).hasSize(201);
+        assertThat(after.getSessions().get(200).getUsers().toList()).containsExactly(this.user.getId());
+        // and a single snapshot for the whole import
+        assertThat(changesOf(after)).isEqualTo(changesOf(before) + 1);
+    }
+
+    private static long changesOf(SessionReadModel.Snapshot snapshot) {
+        return Long.parseLong(snapshot.getVersion().split("\\.")[1]);
+    }
+
+    private String etagOf(String url) throws Exception {
+        return this.mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
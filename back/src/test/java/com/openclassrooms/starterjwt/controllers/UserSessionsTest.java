@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class UserSessionsTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+
+    private User bob;
+
+    @BeforeEach
+    public void setUp() {
+        this.alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "password", false));
+        this.bob = this.userRepository.save(new User("bob@studio.com", "Bob", "Bob", "password", false));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.sessionRepository.deleteAll();
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void listsTheSessionsOfAParticipantByDate() throws Exception {
+        Session later = createSession("Later", 2, Arrays.asList(this.alice, this.bob));
+        createSession("Elsewhere", 1, Collections.singletonList(this.bob));
+        Session sooner = createSession("Sooner", 1, Collections.singletonList(this.alice));
+
+        this.mockMvc.perform(get("/api/user/" + this.alice.getId() + "/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].id", contains(sooner.getId().intValue(), later.getId().intValue())))
+                .andExpect(jsonPath("$[*].participantCount", contains(1, 2)));
+    }
+
+    @Test
+    public void unknownUserIsNotFound() throws Exception {
+        this.mockMvc.perform(get("/api/user/0/sessions")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void bothQuestionsAreAnsweredFromAnIndex() {
+        assertThat(explain("SELECT session_id FROM PARTICIPATE WHERE user_id = 1"))
+                .contains("IDX_PARTICIPATE_USER_SESSION");
+        assertThat(explain("SELECT participant_count FROM SESSIONS WHERE id = 1"))
+                .contains("PRIMARY_KEY");
+    }
+
+    private String explain(String query) {
+        return this.jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+    }
+
+    private Session createSession(String name, int daysFromNow, List<User> participants) {
+        return this.sessionRepository.save(Session.builder()
+                .name(name)
+                .description("Description")
+                .date(new Date(System.currentTimeMillis() + daysFromNow * 86_400_000L))
+                .users(participants)
+                .participantCount(participants.size())
+                .build());
+    }
+}
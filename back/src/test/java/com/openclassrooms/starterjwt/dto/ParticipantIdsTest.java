@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParticipantIdsTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void keepsIdsSortedAndDistinct() {
+        ParticipantIds ids = ParticipantIds.builder().add(42).add(7).add(42).add(-1).add(7).build();
+
+        assertThat(ids.toArray()).containsExactly(-1, 7, 42);
+        assertThat(ids.contains(7)).isTrue();
+        assertThat(ids.contains(8)).isFalse();
+        assertThat(ids).isEqualTo(ParticipantIds.of(Arrays.asList(42L, null, -1L, 7L)));
+        assertThat(ids.toString()).isEqualTo("[-1, 7, 42]");
+        assertThat(ParticipantIds.of()).isSameAs(ParticipantIds.empty());
+    }
+
+    @Test
+    public void isReadAndWrittenAsAnArrayOfIds() throws Exception {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setUsers(ParticipantIds.of(3, 1, 2));
+
+        String json = this.objectMapper.writeValueAsString(sessionDto);
+        assertThat(json).contains("\"users\":[1,2,3]");
+
+        assertThat(this.objectMapper.readValue("{\"users\":[5,null,\"4\",5]}", SessionDto.class).getUsers())
+                .isEqualTo(ParticipantIds.of(4, 5));
+        assertThat(this.objectMapper.readValue("{\"users\":null}", SessionDto.class).getUsers()).isNull();
+        assertThat(this.objectMapper.readValue("{}", SessionDto.class).getUsers()).isNull();
+    }
+}
@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SessionEventBroadcasterTest {
+    private static final int QUEUE_DEPTH = 4;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SessionEventBroadcaster broadcaster = new SessionEventBroadcaster(new ObjectMapper(), this.meterRegistry,
+            60_000, 3_600_000, 3, QUEUE_DEPTH, 2);
+
+    @AfterEach
+    public void tearDown() {
+        this.broadcaster.shutdown();
+    }
+
+    @Test
+    public void aStalledSubscriberIsDroppedWithoutDelayingTheOthers() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(unblock);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        this.broadcaster.subscribe(stalled);
+        this.broadcaster.subscribe(fast);
+
+        // one at a time, each written to the fast subscriber while the other is stuck on its first one
+        int events = QUEUE_DEPTH * 3;
+        for (long i = 1; i <= events; i++) {
+            this.broadcaster.publish(SessionEvent.deleted(i));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (fast.sent.size() < i + 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            // the subscribed comment, then every event so far
+            assertThat(fast.sent).hasSize((int) i + 1);
+        }
+        assertThat(this.broadcaster.getSubscriberCount()).isEqualTo(1);
+        assertThat(this.meterRegistry.counter("yoga.session.events.dropped").count()).isEqualTo(1);
+
+        unblock.countDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!stalled.completed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(stalled.completed).isTrue();
+        assertThat(stalled.sent.size()).isLessThanOrEqualTo(2);
+        assertThat(fast.completed).isFalse();
+    }
+
+    @Test
+    public void concurrentSubscriptionsNeverExceedTheCap() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    this.broadcaster.subscribe(new RecordingEmitter(null));
+                } catch (ServiceUnavailableException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(this.broadcaster.getSubscriberCount()).isEqualTo(3);
+        assertThat(refused.get()).isEqualTo(29);
+        assertThatThrownBy(() -> this.broadcaster.subscribe(new RecordingEmitter(null)))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    /**
+     * Records what is sent instead of writing it; blocks on every send after the first while the latch is held.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch unblock;
+
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            this.sent.add(builder);
+            if (this.unblock != null && this.sent.size() > 1) {
+                try {
+                    this.unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            this.completed = true;
+        }
+    }
+}
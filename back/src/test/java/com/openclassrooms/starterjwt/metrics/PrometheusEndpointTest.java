@@ -0,0 +1,108 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.server.port=0",
+        "management.server.address=127.0.0.1",
+        "management.endpoint.health.probes.enabled=true",
+        "management.endpoint.health.group.liveness.additional-path=server:/livez"
+})
+@AutoConfigureMetrics
+public class PrometheusEndpointTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        this.user = this.userRepository.save(
+                new User("metrics@studio.com", "Metrics", "Metrics", this.passwordEncoder.encode("password"), false));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.userRepository.delete(this.user);
+    }
+
+    @Test
+    public void scrapeExposesControllerSecurityRepositoryAndPoolMetrics() {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put("email", "metrics@studio.com");
+        credentials.put("password", "password");
+        ResponseEntity<Map> login = this.restTemplate.postForEntity("/api/auth/login", credentials, Map.class);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(getTeachers("Bearer " + login.getBody().get("token")).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(getTeachers("Bearer not.a.token").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        ResponseEntity<String> scrape = this.restTemplate.getForEntity(managementUrl("/actuator/prometheus"), String.class);
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(scrape.getBody())
+                .contains("yoga_controller_seconds_count{controller=\"AuthController\",exception=\"none\",method=\"authenticateUser\",status=\"200\",}")
+                .contains("yoga_controller_seconds_count{controller=\"TeacherController\",exception=\"none\",method=\"findAll\",status=\"200\",}")
+                .contains("yoga_jwt_sign_seconds_count")
+                .contains("yoga_jwt_parse_seconds_count")
+                .contains("yoga_jwt_rejected_total{reason=\"malformed\",}")
+                .contains("yoga_security_filter_seconds_count{authenticated=\"true\",}")
+                .contains("yoga_security_user_load_seconds_count")
+                .contains("repository=\"TeacherRepository\"")
+                .contains("hikaricp_connections_acquire_seconds_count")
+                .contains("hikaricp_connections_active")
+                .contains("hikaricp_connections_idle");
+    }
+
+    @Test
+    public void metricsAreOnlyServedOnTheManagementPort() {
+        assertThat(this.restTemplate.getForEntity("/livez", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(this.restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(this.restTemplate.getForEntity("/actuator/metrics", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(this.restTemplate.getForEntity(managementUrl("/actuator/caches"), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(this.restTemplate.exchange(managementUrl("/actuator/caches"), HttpMethod.DELETE, null, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private ResponseEntity<String> getTeachers(String authorization) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        return this.restTemplate.exchange("/api/teacher", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private String managementUrl(String path) {
+        return "http://127.0.0.1:" + this.managementPort + path;
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Adopts a database created by hand from the former ressources/sql/script.sql, schema and seed data, the way
+ * the application does with {@code spring.flyway.baseline-on-migrate}.
+ */
+public class MigrationTest {
+    @Test
+    public void databaseFromTheFormerScriptIsBroughtUpToDate() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:script;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__create_schema.sql' CHARSET 'UTF-8'");
+        jdbcTemplate.execute("RUNSCRIPT FROM 'classpath:db/seed/V1_1__seed_data.sql' CHARSET 'UTF-8'");
+        jdbcTemplate.update("INSERT INTO USERS (id, first_name, last_name, email, password) VALUES (2, 'Yogi', 'Yogi', 'yogi@studio.com', 'hash')");
+        jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id, updated_at)"
+                + " VALUES (1, 'Morning flow', 'Vinyasa', TIMESTAMP '2024-01-01 10:00:00', 1, TIMESTAMP '2024-01-01 09:00:00')");
+        // the former schema had no key: the same participation twice, and a row without a user
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (1, 1), (2, 1), (2, 1), (NULL, 1)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:db/seed")
+                .baselineOnMigrate(true)
+                .baselineVersion("1.1")
+                .load()
+                .migrate();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TEACHERS", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT participant_count FROM SESSIONS WHERE id = 1", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT capacity FROM SESSIONS WHERE id = 1", Integer.class)).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_at FROM SESSIONS WHERE id = 1", String.class))
+                .startsWith("2024-01-01 09:00:00");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST", Integer.class)).isZero();
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (2, 1)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(jdbcTemplate.queryForList("SELECT NUMERIC_SCALE FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_NAME IN ('TEACHERS', 'SESSIONS') AND COLUMN_NAME = 'UPDATED_AT'", Integer.class)).containsOnly(6);
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+}
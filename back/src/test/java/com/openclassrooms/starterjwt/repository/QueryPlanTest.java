@@ -0,0 +1,144 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls the hot repository methods, records the statements Hibernate sends for them and runs EXPLAIN on each,
+ * parameters unbound as the database prepares them, against the schema built by the migrations. Fails as soon
+ * as one of them reads a whole table or a whole index.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.openclassrooms.starterjwt.repository.QueryPlanTest$StatementRecorder")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanTest {
+    private static final String DATE = "TIMESTAMP '2024-01-01 00:00:00'";
+
+    private static final Timestamp FROM = Timestamp.valueOf("2024-01-01 00:00:00");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    private long sessionId;
+
+    private long userId;
+
+    private long teacherId;
+
+    @BeforeAll
+    public void setUp() {
+        // enough rows that a scan is never the cheapest plan
+        this.jdbcTemplate.update("INSERT INTO TEACHERS (first_name, last_name) SELECT 'Margot', 'Delahaye' FROM SYSTEM_RANGE(1, 10)");
+        this.jdbcTemplate.update("INSERT INTO USERS (first_name, last_name, admin, email, password)"
+                + " SELECT 'Yogi', 'Yogi', false, CONCAT('yogi', X, '@studio.com'), 'password' FROM SYSTEM_RANGE(1, 1000)");
+        this.jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id, participant_count)"
+                + " SELECT 'Session', 'Description', DATEADD('MINUTE', X, " + DATE + "),"
+                + " (SELECT MIN(id) FROM TEACHERS) + MOD(X, 10), 0 FROM SYSTEM_RANGE(1, 1000)");
+        // ten distinct users per session in each table
+        this.jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id)"
+                + " SELECT (SELECT MIN(id) FROM SESSIONS) + MOD(X, 1000), (SELECT MIN(id) FROM USERS) + X / 1000 * 100 + MOD(X, 100)"
+                + " FROM SYSTEM_RANGE(0, 9999)");
+        this.jdbcTemplate.update("INSERT INTO WAITLIST (session_id, user_id)"
+                + " SELECT (SELECT MIN(id) FROM SESSIONS) + MOD(X, 1000), (SELECT MIN(id) FROM USERS) + X / 1000 * 100 + MOD(X + 50, 100)"
+                + " FROM SYSTEM_RANGE(0, 9999)");
+        this.jdbcTemplate.execute("ANALYZE");
+
+        this.sessionId = this.jdbcTemplate.queryForObject("SELECT MIN(id) FROM SESSIONS", Long.class);
+        this.userId = this.jdbcTemplate.queryForObject("SELECT MIN(id) FROM USERS", Long.class);
+        this.teacherId = this.jdbcTemplate.queryForObject("SELECT MIN(id) FROM TEACHERS", Long.class);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM WAITLIST");
+        this.jdbcTemplate.update("DELETE FROM PARTICIPATE");
+        this.jdbcTemplate.update("DELETE FROM SESSIONS");
+        this.jdbcTemplate.update("DELETE FROM USERS");
+        this.jdbcTemplate.update("DELETE FROM TEACHERS");
+    }
+
+    public Stream<Arguments> hotQueries() {
+        return Stream.of(
+                hotQuery("UserRepository.findByEmail", () -> this.userRepository.findByEmail("yogi1@studio.com")),
+                hotQuery("UserRepository.existsByEmail", () -> this.userRepository.existsByEmail("yogi1@studio.com")),
+                hotQuery("SessionRepository.findPage, first page", () -> this.sessionRepository.findPage(
+                        FROM, null, null, null, null, PageRequest.of(0, 21))),
+                hotQuery("SessionRepository.findPage, next page", () -> this.sessionRepository.findPage(
+                        FROM, null, null, FROM, this.sessionId, PageRequest.of(0, 21))),
+                hotQuery("SessionRepository.findPage, by teacher", () -> this.sessionRepository.findPage(
+                        FROM, null, this.teacherId, null, null, PageRequest.of(0, 21))),
+                hotQuery("SessionRepository.findParticipants", () -> this.sessionRepository.findParticipants(
+                        Arrays.asList(this.sessionId, this.sessionId + 1, this.sessionId + 2))),
+                hotQuery("SessionRepository.findByParticipant", () -> this.sessionRepository.findByParticipant(this.userId)),
+                hotQuery("SessionRepository.countParticipant", () -> this.sessionRepository.countParticipant(this.sessionId, this.userId)),
+                hotQuery("SessionRepository.reserveSeat", () -> this.sessionRepository.reserveSeat(this.sessionId, LocalDateTime.now())),
+                hotQuery("SessionRepository.findUpdatedAtById", () -> this.sessionRepository.findUpdatedAtById(this.sessionId)),
+                hotQuery("WaitlistRepository.findNextUserIds", () -> this.waitlistRepository.findNextUserIds(
+                        this.sessionId, PageRequest.of(0, 1))),
+                hotQuery("WaitlistRepository.removeParticipantsFromWaitlist", () -> this.waitlistRepository
+                        .removeParticipantsFromWaitlist(this.sessionId)));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    public void hotQueryUsesAnIndex(String method, Runnable call) {
+        StatementRecorder.STATEMENTS.clear();
+        call.run();
+
+        List<String> statements = StatementRecorder.STATEMENTS;
+        assertThat(statements).as(method).isNotEmpty();
+        for (String statement : statements) {
+            String plan = this.jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + statement),
+                    resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+
+            // a scan shows as PUBLIC.TABLE.tableScan, or as an index comment without a condition
+            assertThat(plan).as(plan)
+                    .doesNotContain(".tableScan")
+                    .doesNotContainPattern("/\\* [\\w.]+ \\*/");
+        }
+    }
+
+    private static Arguments hotQuery(String method, Runnable call) {
+        return Arguments.of(method, call);
+    }
+
+    /**
+     * Registered with Hibernate by class name; keeps the SQL of every statement prepared since it was last cleared.
+     */
+    public static class StatementRecorder implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class AuthTokenFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    private String bearer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        this.user = this.userRepository.save(
+                new User("yogi@studio.com", "Yogi", "Yogi", this.passwordEncoder.encode("password"), true));
+
+        String login = this.mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"yogi@studio.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = this.objectMapper.readTree(login);
+        assertThat(response.get("admin").asBoolean()).isTrue();
+
+        this.bearer = "Bearer " + response.get("token").asText();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void authenticationDoesNotQueryTheDatabase() throws Exception {
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // a malformed id is rejected by the controller before any query of its own
+        this.mockMvc.perform(get("/api/session/not-a-number").header(HttpHeaders.AUTHORIZATION, this.bearer))
+                .andExpect(status().isBadRequest());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void tokensOfDeletedUsersAreRejected() throws Exception {
+        this.mockMvc.perform(delete("/api/user/" + this.user.getId()).header(HttpHeaders.AUTHORIZATION, this.bearer))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(get("/api/session/not-a-number").header(HttpHeaders.AUTHORIZATION, this.bearer))
+                .andExpect(status().isUnauthorized())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.status").value(401))
+                .andExpect(jsonPath("$.error").value("Unauthorized"))
+                .andExpect(jsonPath("$.message").isString())
+                .andExpect(jsonPath("$.path").isString());
+    }
+}
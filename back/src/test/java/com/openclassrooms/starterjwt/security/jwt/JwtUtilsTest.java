@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JwtUtilsTest {
+    private static final String SECRET = "openclassrooms";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    public void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.jwtUtils = new JwtUtils(100, 60000, this.meterRegistry);
+        ReflectionTestUtils.setField(this.jwtUtils, "jwtSecret", SECRET);
+    }
+
+    @Test
+    public void repeatedTokensAreServedFromTheCache() {
+        String token = token(SECRET, new Date(System.currentTimeMillis() + 60000));
+
+        assertThat(this.jwtUtils.validateJwtToken(token)).isTrue();
+        assertThat(this.jwtUtils.getUserNameFromJwtToken(token)).isEqualTo("yoga@studio.com");
+
+        assertThat(cacheGets("miss")).isEqualTo(1);
+        assertThat(cacheGets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidTokensAreNeverCached() {
+        String token = token("another secret", new Date(System.currentTimeMillis() + 60000));
+
+        assertThat(this.jwtUtils.validateJwtToken(token)).isFalse();
+        assertThat(this.jwtUtils.validateJwtToken(token)).isFalse();
+
+        assertThat(cacheGets("hit")).isZero();
+    }
+
+    @Test
+    public void cachedClaimsDoNotOutliveTheToken() throws InterruptedException {
+        String token = token(SECRET, new Date(System.currentTimeMillis() + 5000));
+        assertThat(this.jwtUtils.validateJwtToken(token)).isTrue();
+
+        Date expiration = this.jwtUtils.getClaimsFromJwtToken(token).getExpiration();
+        Thread.sleep(Math.max(0, expiration.getTime() - System.currentTimeMillis()) + 100);
+
+        assertThat(this.jwtUtils.validateJwtToken(token)).isFalse();
+    }
+
+    private double cacheGets(String result) {
+        return this.meterRegistry.get("cache.gets").tag("cache", "jwt").tag("result", result).functionCounter().count();
+    }
+
+    private String token(String secret, Date expiration) {
+        return Jwts.builder()
+                .setSubject("yoga@studio.com")
+                .setIssuedAt(new Date())
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BoundedPasswordEncoderTest {
+    private final CountDownLatch hashing = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private MeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setUp() {
+        PasswordEncoder slowEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "{hashed}" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.passwordEncoder = new BoundedPasswordEncoder(slowEncoder, 1, 1, this.meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.release.countDown();
+        this.passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void refusesRequestsBeyondThreadsAndQueue() throws Exception {
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> this.passwordEncoder.encode("first"));
+        assertThat(this.hashing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> this.passwordEncoder.matches("second", "{hashed}second"));
+        while (this.meterRegistry.get("yoga.password.queued").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> this.passwordEncoder.encode("third")).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(this.meterRegistry.get("yoga.password.rejected").counter().count()).isEqualTo(1);
+
+        this.release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("{hashed}first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(this.meterRegistry.get("yoga.password.queue").tag("operation", "matches").timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("yoga.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "oc.app.passwordBcryptStrength=5",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureMockMvc
+public class PasswordUpgradeTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void tearDown() {
+        this.userRepository.deleteAll();
+    }
+
+    @Test
+    public void legacyHashIsRewrittenOnceWithTheConfiguredProfile() throws Exception {
+        Long id = this.userRepository.save(new User("legacy@studio.com", "Legacy", "Legacy",
+                new BCryptPasswordEncoder(4).encode("password"), false)).getId();
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        login(this.mockMvc, "legacy@studio.com");
+        // the lookup by email, then the rehash
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(this.userRepository.findById(id).get().getPassword()).startsWith("{bcrypt}$2a$05$");
+
+        statistics.clear();
+        login(this.mockMvc, "legacy@studio.com");
+        // the lookup by email only
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "oc.app.passwordAlgorithm=pbkdf2",
+            "oc.app.passwordPbkdf2Iterations=2000"})
+    public class Pbkdf2 {
+        // the enclosing instance is wired to the bcrypt context
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @Test
+        public void changingTheIterationCountRehashesOnLogin() throws Exception {
+            Long id = this.userRepository.save(new User("pbkdf2@studio.com", "Pbkdf2", "Pbkdf2",
+                    "{pbkdf2}" + new IterationCountPbkdf2PasswordEncoder(1000).encode("password"), false)).getId();
+            Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+            statistics.clear();
+            login(this.mockMvc, "pbkdf2@studio.com");
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(this.userRepository.findById(id).get().getPassword()).startsWith("{pbkdf2}2000$");
+
+            statistics.clear();
+            login(this.mockMvc, "pbkdf2@studio.com");
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+
+        @Test
+        public void hashWithoutIterationCountIsReadWithTheFormerDefault() throws Exception {
+            Long id = this.userRepository.save(new User("pbkdf2@studio.com", "Pbkdf2", "Pbkdf2",
+                    "{pbkdf2}" + new Pbkdf2PasswordEncoder("", 16, 185000, 256).encode("password"), false)).getId();
+
+            login(this.mockMvc, "pbkdf2@studio.com");
+            assertThat(this.userRepository.findById(id).get().getPassword()).startsWith("{pbkdf2}2000$");
+        }
+    }
+
+    private static void login(MockMvc mockMvc, String email) throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"password\":\"password\"}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class LookupCacheTest {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.teacherRepository.deleteAll();
+        this.userRepository.deleteAll();
+        this.cacheManager.getCacheNames().forEach(name -> this.cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    public void repeatedUserLookupsAreServedFromMemory() {
+        User alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "hash", false));
+
+        UserDto first = this.userService.findById(alice.getId());
+        this.statistics.clear();
+        UserDto second = this.userService.findById(alice.getId());
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+        assertThat(second).isSameAs(first);
+        assertThat(second.getEmail()).isEqualTo("alice@studio.com");
+        assertThat(second.getPassword()).isNull();
+        assertThat(this.cacheManager.getCache("user").get(alice.getId()).get()).isInstanceOf(UserDto.class);
+    }
+
+    @Test
+    public void deletingAUserEvictsIt() {
+        User alice = this.userRepository.save(new User("alice@studio.com", "Alice", "Alice", "hash", false));
+        assertThat(this.userService.findById(alice.getId())).isNotNull();
+
+        this.userService.delete(alice.getId());
+
+        assertThat(this.cacheManager.getCache("user").get(alice.getId())).isNull();
+        assertThat(this.userService.findById(alice.getId())).isNull();
+    }
+
+    @Test
+    public void theTeacherListIsServedFromMemory() {
+        this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+
+        assertThat(this.teacherService.findAll()).hasSize(1);
+        this.statistics.clear();
+        assertThat(this.teacherService.findAll()).hasSize(1);
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void repeatedTeacherLookupsAreServedFromMemory() {
+        Teacher margot = this.teacherRepository.save(new Teacher().setFirstName("Margot").setLastName("Delahaye"));
+
+        TeacherDto first = this.teacherService.findById(margot.getId());
+        this.statistics.clear();
+        TeacherDto second = this.teacherService.findById(margot.getId());
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+        assertThat(second).isSameAs(first);
+        assertThat(second.getLastName()).isEqualTo("Delahaye");
+        assertThat(this.cacheManager.getCache("teacher").get(margot.getId()).get()).isInstanceOf(TeacherDto.class);
+    }
+}
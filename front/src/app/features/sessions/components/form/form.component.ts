@@ -74,6 +74,10 @@ export class FormComponent implements OnInit {
         session ? session.teacher_id : '',
         [Validators.required]
       ],
+      capacity: [
+        session?.capacity ?? null,
+        [Validators.min(1)]
+      ],
       description: [
         session ? session.description : '',
         [
@@ -3,7 +3,9 @@ import { ComponentFixture, TestBed } from '@angular/core/testing';
 import { MatCardModule } from '@angular/material/card';
 import { MatIconModule } from '@angular/material/icon';
 import { expect } from '@jest/globals';
+import { NEVER, of } from 'rxjs';
 import { SessionService } from 'src/app/services/session.service';
+import { SessionApiService } from '../../services/session-api.service';
 
 import { ListComponent } from './list.component';
 
@@ -17,11 +19,19 @@ describe('ListComponent', () => {
     }
   }
 
+  const mockSessionApiService = {
+    page: jest.fn(() => of({ sessions: [], nextCursor: null })),
+    events: jest.fn(() => NEVER)
+  }
+
   beforeEach(async () => {
     await TestBed.configureTestingModule({
       declarations: [ListComponent],
       imports: [HttpClientModule, MatCardModule, MatIconModule],
-      providers: [{ provide: SessionService, useValue: mockSessionService }]
+      providers: [
+        { provide: SessionService, useValue: mockSessionService },
+        { provide: SessionApiService, useValue: mockSessionApiService }
+      ]
     })
       .compileComponents();
 
@@ -33,4 +43,11 @@ describe('ListComponent', () => {
   it('should create', () => {
     expect(component).toBeTruthy();
   });
+
+  it('should list upcoming sessions and follow the event stream', () => {
+    const page = mockSessionApiService.page.mock.calls[0] as unknown as [Date, string | undefined, number];
+    expect(page[0].getHours()).toBe(0);
+    expect(page[1]).toBeUndefined();
+    expect(mockSessionApiService.events).toHaveBeenCalled();
+  });
 });
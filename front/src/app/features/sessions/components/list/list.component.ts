@@ -1,8 +1,10 @@
-import { Component } from '@angular/core';
-import { Observable } from 'rxjs';
+import { Component, OnDestroy, OnInit } from '@angular/core';
+import { debounceTime, Subject, Subscription, switchMap } from 'rxjs';
 import { SessionInformation } from '../../../../interfaces/sessionInformation.interface';
 import { SessionService } from '../../../../services/session.service';
 import { Session } from '../../interfaces/session.interface';
+import { SessionEvent } from '../../interfaces/sessionEvent.interface';
+import { SessionPage } from '../../interfaces/sessionPage.interface';
 import { SessionApiService } from '../../services/session-api.service';
 
 @Component({
@@ -10,16 +12,82 @@ import { SessionApiService } from '../../services/session-api.service';
   templateUrl: './list.component.html',
   styleUrls: ['./list.component.scss']
 })
-export class ListComponent {
+export class ListComponent implements OnInit, OnDestroy {
 
-  public sessions$: Observable<Session[]> = this.sessionApiService.all();
+  private static readonly PAGE_SIZE = 20;
+  private static readonly MAX_PAGE_SIZE = 100;
+  private static readonly RELOAD_DELAY_MS = 500;
+
+  public sessions: Session[] = [];
+  public nextCursor: string | null = null;
+
+  // upcoming sessions first: fixed once so that every page shares the same window
+  private readonly from: Date = ListComponent.startOfToday();
+
+  private readonly reloads = new Subject<void>();
+  private readonly subscriptions = new Subscription();
 
   constructor(
     private sessionService: SessionService,
     private sessionApiService: SessionApiService
   ) { }
 
+  public ngOnInit(): void {
+    this.loadMore();
+    // kept up to date from the event stream rather than by reloading on a timer
+    this.subscriptions.add(this.sessionApiService.events()
+      .subscribe((event: SessionEvent) => this.apply(event)));
+    this.subscriptions.add(this.reloads
+      .pipe(
+        debounceTime(ListComponent.RELOAD_DELAY_MS),
+        switchMap(() => this.sessionApiService.page(this.from, undefined,
+          Math.min(Math.max(this.sessions.length, ListComponent.PAGE_SIZE), ListComponent.MAX_PAGE_SIZE)))
+      )
+      .subscribe((page: SessionPage) => {
+        this.sessions = page.sessions;
+        this.nextCursor = page.nextCursor;
+      }));
+  }
+
+  public ngOnDestroy(): void {
+    this.subscriptions.unsubscribe();
+  }
+
   get user(): SessionInformation | undefined {
     return this.sessionService.sessionInformation;
   }
+
+  public loadMore(): void {
+    this.sessionApiService
+      .page(this.from, this.nextCursor ?? undefined, ListComponent.PAGE_SIZE)
+      .subscribe((page: SessionPage) => {
+        this.sessions = [...this.sessions, ...page.sessions];
+        this.nextCursor = page.nextCursor;
+      });
+  }
+
+  /**
+   * An edited or deleted session is patched in place; a new one, or an import, may land anywhere in the
+   * order, so the sessions loaded so far are read again, once a burst of changes is over.
+   */
+  private apply(event: SessionEvent): void {
+    switch (event.type) {
+      case 'UPDATED':
+        this.sessions = this.sessions.map(session => session.id === event.sessionId ? { ...session, ...event.fields } : session);
+        break;
+      case 'DELETED':
+        this.sessions = this.sessions.filter(session => session.id !== event.sessionId);
+        break;
+      case 'CREATED':
+      case 'CHANGED':
+        this.reloads.next();
+        break;
+    }
+  }
+
+  private static startOfToday(): Date {
+    const today = new Date();
+    today.setHours(0, 0, 0, 0);
+    return today;
+  }
 }
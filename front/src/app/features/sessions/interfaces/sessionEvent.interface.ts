@@ -0,0 +1,10 @@
+import { Session } from './session.interface';
+
+export interface SessionEvent {
+  type: 'CREATED' | 'UPDATED' | 'DELETED' | 'PARTICIPATED' | 'LEFT' | 'CHANGED';
+  sessionId?: number;
+  participantCount?: number;
+  userId?: number;
+  fields?: Partial<Session>;
+  sessionCount?: number;
+}
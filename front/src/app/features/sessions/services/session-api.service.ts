@@ -1,7 +1,10 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { Observable, retry } from 'rxjs';
+import { SessionService } from '../../../services/session.service';
 import { Session } from '../interfaces/session.interface';
+import { SessionEvent } from '../interfaces/sessionEvent.interface';
+import { SessionPage } from '../interfaces/sessionPage.interface';
 
 @Injectable({
   providedIn: 'root'
@@ -10,13 +13,32 @@ export class SessionApiService {
 
   private pathService = 'api/session';
 
-  constructor(private httpClient: HttpClient) {
+  private static readonly EVENTS_RETRY_DELAY_MS = 5000;
+
+  constructor(
+    private httpClient: HttpClient,
+    private sessionService: SessionService
+  ) {
   }
 
   public all(): Observable<Session[]> {
     return this.httpClient.get<Session[]>(this.pathService);
   }
 
+  /**
+   * Sessions by ascending date, from the given date onwards when there is one.
+   */
+  public page(from?: Date, cursor?: string, size: number = 20): Observable<SessionPage> {
+    let params = new HttpParams().set('size', size);
+    if (from) {
+      params = params.set('from', from.toISOString());
+    }
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return this.httpClient.get<SessionPage>(`${this.pathService}/page`, { params });
+  }
+
   public detail(id: string): Observable<Session> {
     return this.httpClient.get<Session>(`${this.pathService}/${id}`);
   }
@@ -41,4 +63,55 @@ export class SessionApiService {
     return this.httpClient.delete<void>(`${this.pathService}/${id}/participate/${userId}`);
   }
 
+  /**
+   * Every change to sessions as it happens, read from the Server-Sent Events stream with fetch: EventSource
+   * cannot send the bearer token. Reconnects after a pause when the stream ends or fails.
+   */
+  public events(): Observable<SessionEvent> {
+    return new Observable<SessionEvent>(subscriber => {
+      const abort = new AbortController();
+      const token = this.sessionService.sessionInformation?.token;
+
+      fetch(`${this.pathService}/events`, {
+        headers: token ? { Authorization: `Bearer ${token}` } : {},
+        signal: abort.signal
+      })
+        .then(async response => {
+          if (!response.ok || !response.body) {
+            throw new Error(`Session events unavailable: ${response.status}`);
+          }
+          const reader = response.body.getReader();
+          const decoder = new TextDecoder();
+          let buffer = '';
+          for (;;) {
+            const { value, done } = await reader.read();
+            if (done) {
+              break;
+            }
+            buffer += decoder.decode(value, { stream: true });
+            // a message ends with a blank line; only its data lines matter, comments are heartbeats
+            let end: number;
+            while ((end = buffer.indexOf('\n\n')) >= 0) {
+              const data = buffer.slice(0, end).split('\n')
+                .filter(line => line.startsWith('data:'))
+                .map(line => line.slice(5))
+                .join('\n');
+              buffer = buffer.slice(end + 2);
+              if (data) {
+                subscriber.next(JSON.parse(data) as SessionEvent);
+              }
+            }
+          }
+          subscriber.error(new Error('Session events ended'));
+        })
+        .catch(error => {
+          if (!abort.signal.aborted) {
+            subscriber.error(error);
+          }
+        });
+
+      return () => abort.abort();
+    }).pipe(retry({ delay: SessionApiService.EVENTS_RETRY_DELAY_MS }));
+  }
+
 }